@@ -0,0 +1,119 @@
+package org.example.service;
+
+import org.example.ExpenseSyncApplication;
+import org.example.dto.RawBalanceResponse;
+import org.example.dto.SimplifiedBalanceResponse;
+import org.example.model.Expense;
+import org.example.model.ExpenseParticipant;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the balance read paths over synthetic ledgers, against the full application context on in-memory H2.
+ * The ledger is built from the inserted history by a repairing rebuild and checked against the in-memory reference
+ * calculations before anything is timed. Balances are read for the user taking part in the most expenses, and
+ * settlement is also timed on its own, over every user's net balance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dspring.devtools.restart.enabled=false"})
+public class BalanceServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int expenses;
+
+    @Param({"100", "10000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private BalanceService balanceService;
+    private SettlementPlanCache planCache;
+    private SettlementEngine netBalances;
+    private String heavyUser;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Without the query cache H2 runs every read, as a real database would.
+        context = new SpringApplicationBuilder(ExpenseSyncApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:balances;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0",
+                        "logging.level.root=WARN")
+                .run();
+        balanceService = context.getBean(BalanceService.class);
+        planCache = context.getBean(SettlementPlanCache.class);
+
+        SyntheticLedger synthetic = SyntheticLedger.generate(expenses, users, 42);
+        synthetic.insert(context.getBean(JdbcTemplate.class));
+        balanceService.rebuildLedger(true);
+        netBalances = ReferenceBalances.netBalances(synthetic.expenses);
+
+        Map<Long, Integer> expenseCounts = new HashMap<>();
+        for (Expense expense : synthetic.expenses) {
+            for (ExpenseParticipant participant : expense.getParticipants()) {
+                expenseCounts.merge(participant.getUser().getId(), 1, Integer::sum);
+            }
+        }
+        Long heavyUserId = expenseCounts.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+        heavyUser = synthetic.users.get((int) (heavyUserId - 1)).getEmail();
+        List<Expense> heavyUserExpenses = synthetic.expenses.stream()
+                .filter(e -> e.getParticipants().stream().anyMatch(p -> p.getUser().getId().equals(heavyUserId)))
+                .toList();
+
+        verify("Simplified net balance", netBalances.toBalanceMap().get(heavyUserId), simplifiedBalance().getNetBalance());
+        verify("Raw net balance",
+                ReferenceBalances.counterpartyBalances(heavyUserId, heavyUserExpenses).values().stream()
+                        .reduce(BigDecimal.ZERO, BigDecimal::add),
+                rawBalance().getNetBalance());
+    }
+
+    /**
+     * The ledger must agree with the reference calculations before it is timed.
+     */
+    private static void verify(String what, BigDecimal reference, BigDecimal ledger) {
+        if (reference.compareTo(ledger) != 0) {
+            throw new IllegalStateException(what + " is " + ledger + " from the ledger but " + reference
+                    + " from the reference calculation.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<SettlementEngine.Transfer> settle() {
+        return netBalances.settle();
+    }
+
+    @Benchmark
+    public SimplifiedBalanceResponse simplifiedBalance() {
+        return balanceService.getSimplifiedBalance(heavyUser);
+    }
+
+    /**
+     * A simplified balance read right after a ledger write, which settles the user's component again.
+     */
+    @Benchmark
+    public SimplifiedBalanceResponse simplifiedBalanceAfterWrite() {
+        planCache.invalidate();
+        return balanceService.getSimplifiedBalance(heavyUser);
+    }
+
+    @Benchmark
+    public RawBalanceResponse rawBalance() {
+        return balanceService.getRawBalance(heavyUser);
+    }
+}
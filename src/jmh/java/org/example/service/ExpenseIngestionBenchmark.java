@@ -0,0 +1,99 @@
+package org.example.service;
+
+import org.example.ExpenseSyncApplication;
+import org.example.dto.BatchExpenseResponse;
+import org.example.dto.CreateExpenseRequest;
+import org.example.dto.CreateUserRequest;
+import org.example.dto.ParticipantDTO;
+import org.example.dto.SplitType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to ingest a chunk of expenses through the single-item path versus the batch endpoint,
+ * against the full application context on in-memory H2.
+ * Each operation waits for its ledger projections, so the time covers the ledger update as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dspring.devtools.restart.enabled=false"})
+public class ExpenseIngestionBenchmark {
+
+    private static final int USERS = 100;
+
+    @Param({"100", "1000"})
+    private int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+    private LedgerProjector ledgerProjector;
+    private List<CreateExpenseRequest> chunk;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(ExpenseSyncApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:ingestion;DB_CLOSE_DELAY=-1", "logging.level.root=WARN")
+                .run();
+        expenseService = context.getBean(ExpenseService.class);
+        ledgerProjector = context.getBean(LedgerProjector.class);
+
+        UserService userService = context.getBean(UserService.class);
+        for (int i = 0; i < USERS; i++) {
+            userService.createUser(new CreateUserRequest("User " + i, "user" + i + "@example.com"));
+        }
+
+        Random random = new Random(42);
+        chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < chunkSize; i++) {
+            int payer = random.nextInt(USERS);
+            List<ParticipantDTO> participants = new ArrayList<>();
+            participants.add(new ParticipantDTO("user" + payer + "@example.com", null));
+            for (int p = 1 + random.nextInt(4); p > 0; p--) {
+                int other = (payer + 1 + random.nextInt(USERS - 1)) % USERS;
+                if (participants.stream().noneMatch(dto -> dto.getEmail().equals("user" + other + "@example.com"))) {
+                    participants.add(new ParticipantDTO("user" + other + "@example.com", null));
+                }
+            }
+            chunk.add(CreateExpenseRequest.builder()
+                    .description("Expense " + i)
+                    .amount(BigDecimal.valueOf(10 + random.nextInt(10_000), 2))
+                    .paidByEmail("user" + payer + "@example.com")
+                    .splitType(SplitType.EQUAL)
+                    .participants(participants)
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void singleItem(Blackhole blackhole) {
+        for (CreateExpenseRequest request : chunk) {
+            blackhole.consume(expenseService.createExpense(request));
+        }
+        ledgerProjector.awaitIdle();
+    }
+
+    @Benchmark
+    public BatchExpenseResponse batch() {
+        BatchExpenseResponse response = expenseService.createExpenses(chunk);
+        ledgerProjector.awaitIdle();
+        return response;
+    }
+}
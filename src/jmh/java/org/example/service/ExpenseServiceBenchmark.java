@@ -0,0 +1,66 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.dto.CreateExpenseRequest;
+import org.example.dto.ParticipantDTO;
+import org.example.dto.SplitType;
+import org.example.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of share calculation for a single expense, by participant count and split type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseServiceBenchmark {
+
+    @Param({"3", "100", "10000"})
+    private int participants;
+
+    @Param({"EQUAL", "EXACT"})
+    private SplitType splitType;
+
+    private ExpenseService expenseService;
+    private CreateExpenseRequest request;
+    private Set<User> users;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        expenseService = new ExpenseService(null, null, null, null, null, null, null, null, new SimpleMeterRegistry());
+
+        users = new HashSet<>();
+        List<ParticipantDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < participants; i++) {
+            String email = "user" + i + "@example.com";
+            User user = new User("User " + i, email);
+            user.setId((long) i);
+            users.add(user);
+            dtos.add(new ParticipantDTO(email, BigDecimal.valueOf(10)));
+        }
+
+        request = CreateExpenseRequest.builder()
+                .description("Benchmark")
+                .amount(BigDecimal.valueOf(10L * participants))
+                .paidByEmail("user0@example.com")
+                .splitType(splitType)
+                .participants(dtos)
+                .build();
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> calculateShares() {
+        return expenseService.calculateShares(request, users);
+    }
+}
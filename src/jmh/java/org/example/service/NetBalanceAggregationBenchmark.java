@@ -0,0 +1,110 @@
+package org.example.service;
+
+import org.example.ExpenseSyncApplication;
+import org.example.dto.ExpenseTotals;
+import org.example.dto.UserAmount;
+import org.example.repository.ExpenseParticipantRepository;
+import org.example.repository.ExpenseRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to compute every user's net balance by loading all expenses and participants into Java
+ * versus summing paid and owed totals in the database, against the full application context on in-memory H2.
+ * 250000 expenses give roughly one million participant rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g", "-Dspring.devtools.restart.enabled=false"})
+public class NetBalanceAggregationBenchmark {
+
+    private static final int USERS = 1_000;
+
+    @Param({"25000", "250000"})
+    private int expenses;
+
+    private ConfigurableApplicationContext context;
+    private BalanceService balanceService;
+    private ExpenseRepository expenseRepository;
+    private ExpenseParticipantRepository participantRepository;
+    private TransactionTemplate readOnly;
+    private JdbcTemplate jdbc;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(ExpenseSyncApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:aggregation;DB_CLOSE_DELAY=-1", "logging.level.root=WARN")
+                .run();
+        balanceService = context.getBean(BalanceService.class);
+        expenseRepository = context.getBean(ExpenseRepository.class);
+        participantRepository = context.getBean(ExpenseParticipantRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        jdbc = context.getBean(JdbcTemplate.class);
+        SyntheticLedger.generate(expenses, USERS, 42).insert(jdbc);
+        verifySameBalances(inJava(), inDatabase());
+    }
+
+    /**
+     * Both paths must agree before they are timed, which also checks the database-side equal-share rounding
+     * against the Java one on a real database.
+     */
+    private static void verifySameBalances(Map<Long, BigDecimal> inJava, Map<Long, BigDecimal> inDatabase) {
+        if (!inJava.keySet().equals(inDatabase.keySet())) {
+            throw new IllegalStateException("Net balances cover different users: " + inJava.size() + " in Java, "
+                    + inDatabase.size() + " in the database.");
+        }
+        inJava.forEach((userId, amount) -> {
+            if (amount.compareTo(inDatabase.get(userId)) != 0) {
+                throw new IllegalStateException("Net balance of user " + userId + " is " + amount + " in Java but "
+                        + inDatabase.get(userId) + " in the database.");
+            }
+        });
+    }
+
+    /**
+     * H2 reuses the last result of a query while no table has changed, which would leave the aggregates
+     * uncomputed after the first call. A no-op write before each call forces a real scan.
+     */
+    @Setup(Level.Invocation)
+    public void touch() {
+        jdbc.update("update expenses set description = description where id = 1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> inJava() {
+        return readOnly.execute(status ->
+                ReferenceBalances.netBalances(expenseRepository.findAll()).toBalanceMap());
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> inDatabase() {
+        return readOnly.execute(status -> {
+            List<UserAmount> paid = expenseRepository.sumPaidByUser();
+            List<UserAmount> owed = participantRepository.sumOwedByUser();
+
+            ExpenseTotals totals = new ExpenseTotals(0, paid, owed, List.of(), List.of(), List.of());
+            return balanceService.calculateNetBalances(totals).toBalanceMap();
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.service;
+
+import org.example.model.Expense;
+import org.example.model.ExpenseParticipant;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory reference calculations of balances from loaded expenses, as the services computed them before balances
+ * were served from the ledger. Benchmarks check the ledger against them and time them against database aggregates.
+ */
+final class ReferenceBalances {
+
+    private ReferenceBalances() {
+    }
+
+    /**
+     * Computes net balance per user from all expenses, in cents.
+     */
+    static SettlementEngine netBalances(List<Expense> expenses) {
+        SettlementEngine engine = new SettlementEngine();
+
+        for (Expense expense : expenses) {
+            List<ExpenseParticipant> participants = expense.getParticipants();
+            long amount = SettlementEngine.toCents(expense.getAmount());
+            long share = SettlementEngine.equalShare(amount, participants.size());
+
+            for (ExpenseParticipant participant : participants) {
+                engine.add(engine.intern(participant.getUser().getId()), -share);
+            }
+
+            engine.add(engine.intern(expense.getPaidBy().getId()), amount);
+        }
+
+        return engine;
+    }
+
+    /**
+     * Computes, for one user, how much each counterparty (by id) owes them (negative when the user owes the counterparty).
+     */
+    static Map<Long, BigDecimal> counterpartyBalances(Long userId, List<Expense> expenses) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+
+        for (Expense e : expenses) {
+            BigDecimal total = e.getAmount();
+            int size = e.getParticipants().size();
+            BigDecimal share = total.divide(BigDecimal.valueOf(size), 2, RoundingMode.HALF_UP);
+            Long payerId = e.getPaidBy().getId();
+            boolean isPayer = payerId.equals(userId);
+
+            for (ExpenseParticipant p : e.getParticipants()) {
+                Long participantId = p.getUser().getId();
+                if (participantId.equals(userId)) continue;
+
+                if (isPayer) {
+                    balances.merge(participantId, share, BigDecimal::add);
+                } else if (participantId.equals(payerId)) {
+                    balances.merge(participantId, share.negate(), BigDecimal::add);
+                }
+            }
+        }
+        return balances;
+    }
+}
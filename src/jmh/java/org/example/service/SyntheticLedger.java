@@ -0,0 +1,109 @@
+package org.example.service;
+
+import org.example.model.Expense;
+import org.example.model.ExpenseParticipant;
+import org.example.model.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic in-memory ledger of users and equally split expenses for benchmarks.
+ * Each expense has 2 to 6 distinct participants, one of whom paid.
+ */
+final class SyntheticLedger {
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    final List<User> users;
+    final List<Expense> expenses;
+
+    private SyntheticLedger(List<User> users, List<Expense> expenses) {
+        this.users = users;
+        this.expenses = expenses;
+    }
+
+    static SyntheticLedger generate(int expenseCount, int userCount, long seed) {
+        Random random = new Random(seed);
+
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User user = new User("User " + i, "user" + i + "@example.com");
+            user.setId((long) i + 1);
+            users.add(user);
+        }
+
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Expense> expenses = new ArrayList<>(expenseCount);
+        for (int i = 0; i < expenseCount; i++) {
+            Expense expense = new Expense();
+            expense.setId((long) i + 1);
+            expense.setDescription("Expense " + i);
+            expense.setAmount(BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2));
+            expense.setCreatedAt(start.plusMinutes(i));
+
+            int participantCount = Math.min(userCount, 2 + random.nextInt(5));
+            Set<User> participants = new HashSet<>();
+            while (participants.size() < participantCount) {
+                participants.add(users.get(random.nextInt(userCount)));
+            }
+
+            List<ExpenseParticipant> rows = new ArrayList<>(participantCount);
+            for (User user : participants) {
+                ExpenseParticipant participant = new ExpenseParticipant();
+                participant.setExpense(expense);
+                participant.setUser(user);
+                rows.add(participant);
+            }
+            expense.setParticipants(rows);
+            expense.setPaidBy(rows.get(random.nextInt(rows.size())).getUser());
+            expenses.add(expense);
+        }
+
+        return new SyntheticLedger(users, expenses);
+    }
+
+    /**
+     * Inserts the users, expenses and participants with their ids through JDBC batches, bypassing the services.
+     */
+    void insert(JdbcTemplate jdbc) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> userRows = new ArrayList<>();
+        for (User user : users) {
+            userRows.add(new Object[]{user.getId(), user.getUuid(), user.getName(), user.getEmail(), now, now});
+        }
+        jdbc.batchUpdate("insert into users (id, uuid, name, email, created_at, updated_at) values (?, ?, ?, ?, ?, ?)", userRows);
+
+        List<Object[]> expenseRows = new ArrayList<>(INSERT_BATCH_SIZE);
+        List<Object[]> participantRows = new ArrayList<>(INSERT_BATCH_SIZE);
+        long participantId = 1;
+        for (Expense expense : expenses) {
+            expenseRows.add(new Object[]{expense.getId(), expense.getDescription(), expense.getAmount(),
+                    Timestamp.valueOf(expense.getCreatedAt()), expense.getPaidBy().getId(), expense.getParticipants().size()});
+            for (ExpenseParticipant participant : expense.getParticipants()) {
+                participantRows.add(new Object[]{participantId++, expense.getId(), participant.getUser().getId()});
+            }
+
+            if (participantRows.size() >= INSERT_BATCH_SIZE) {
+                flush(jdbc, expenseRows, participantRows);
+            }
+        }
+        flush(jdbc, expenseRows, participantRows);
+    }
+
+    private static void flush(JdbcTemplate jdbc, List<Object[]> expenseRows, List<Object[]> participantRows) {
+        jdbc.batchUpdate("insert into expenses (id, description, amount, created_at, paid_by_id, participant_count) " +
+                "values (?, ?, ?, ?, ?, ?)",
+                expenseRows);
+        jdbc.batchUpdate("insert into expense_participant (id, expense_id, user_id) values (?, ?, ?)", participantRows);
+        expenseRows.clear();
+        participantRows.clear();
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.CreateExpenseRequest;
+import org.example.dto.CreateGroupRequest;
+import org.example.dto.CreateUserRequest;
+import org.example.dto.ParticipantDTO;
+import org.example.dto.SplitType;
+import org.example.service.LedgerProjector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Boots the application on a random port, seeds a synthetic population through the REST API and drives
+ * mixed read/write traffic from concurrent clients, then writes per-endpoint throughput and latency
+ * percentiles as JSON so runs can be compared.
+ * <p>
+ * Tagged {@code load} and kept out of the regular build; run with {@code mvn -Ploadtest test}.
+ * The population and the traffic are configured through {@code loadtest.*} system properties.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        "logging.level.root=WARN",
+        "logging.level.org.example.loadtest=INFO"})
+class EndpointLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EndpointLoadTest.class);
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 2000);
+    private static final int GROUPS = Integer.getInteger("loadtest.groups", 400);
+    private static final int EXPENSES = Integer.getInteger("loadtest.expenses", 20000);
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 32);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("loadtest.duration", 60));
+    private static final double WRITE_RATIO = Double.parseDouble(System.getProperty("loadtest.write-ratio", "0.2"));
+    private static final long SEED = Long.getLong("loadtest.seed", 42);
+    private static final Path REPORT = Path.of(System.getProperty("loadtest.report", "target/loadtest/report.json"));
+    private static final int SEED_CHUNK_SIZE = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LedgerProjector ledgerProjector;
+
+    private HttpClient client;
+    private ExecutorService clients;
+    private final Map<String, Long> groupIds = new ConcurrentHashMap<>();
+    private final AtomicInteger newUsers = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        clients = Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+    }
+
+    @Test
+    void mixedTraffic() throws Exception {
+        SyntheticPopulation population = SyntheticPopulation.generate(USERS, GROUPS, EXPENSES, SEED);
+        long seedingStarted = System.nanoTime();
+        seed(population);
+        Duration seeding = Duration.ofNanos(System.nanoTime() - seedingStarted);
+
+        drive(population, new LatencyRecorder(), WARMUP);
+        LatencyRecorder recorder = new LatencyRecorder();
+        long started = System.nanoTime();
+        drive(population, recorder, DURATION);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("population", Map.of("users", USERS, "groups", GROUPS, "expenses", EXPENSES, "seed", SEED,
+                "seedingSeconds", seeding.toSeconds()));
+        report.put("load", Map.of("clients", CLIENTS, "writeRatio", WRITE_RATIO, "warmupSeconds", WARMUP.toSeconds(),
+                "durationSeconds", DURATION.toSeconds()));
+        report.put("endpoints", recorder.summary(seconds));
+
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(REPORT.toFile(), report);
+        log.info("Load test report written to {}", REPORT.toAbsolutePath());
+
+        assertEquals(0, recorder.errors());
+    }
+
+    private void seed(SyntheticPopulation population) throws Exception {
+        List<Callable<Object>> users = new ArrayList<>();
+        for (String email : population.users) {
+            users.add(() -> post("/users", new CreateUserRequest(email.substring(0, email.indexOf('@')), email)));
+        }
+        runAll(users);
+
+        List<Callable<Object>> groups = new ArrayList<>();
+        for (SyntheticPopulation.Group group : population.groups) {
+            groups.add(() -> groupIds.put(group.name(),
+                    post("/groups", new CreateGroupRequest(group.name(), group.members())).get("id").asLong()));
+        }
+        runAll(groups);
+
+        Random random = new Random(SEED);
+        List<CreateExpenseRequest> expenses = new ArrayList<>(EXPENSES);
+        for (SyntheticPopulation.Group group : population.groups) {
+            for (int i = 0; i < group.expenses(); i++) {
+                expenses.add(expense(group, random));
+            }
+        }
+        List<Callable<Object>> chunks = new ArrayList<>();
+        for (int from = 0; from < expenses.size(); from += SEED_CHUNK_SIZE) {
+            List<CreateExpenseRequest> chunk = expenses.subList(from, Math.min(expenses.size(), from + SEED_CHUNK_SIZE));
+            chunks.add(() -> post("/expenses/batch", chunk));
+        }
+        runAll(chunks);
+
+        // A large seed can take longer than one read-wait to project.
+        while (!ledgerProjector.awaitIdle()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void drive(SyntheticPopulation population, LatencyRecorder recorder, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            Random random = new Random(SEED + i + 1);
+            tasks.add(() -> {
+                while (System.nanoTime() < deadline) {
+                    request(population, random, recorder);
+                }
+                return null;
+            });
+        }
+        runAll(tasks);
+    }
+
+    private void request(SyntheticPopulation population, Random random, LatencyRecorder recorder) throws Exception {
+        double roll = random.nextDouble();
+        if (roll < WRITE_RATIO * 0.9) {
+            send(recorder, "POST /expenses", jsonPost("/expenses", expense(population.pickGroup(random), random)));
+        } else if (roll < WRITE_RATIO) {
+            String email = "new" + newUsers.incrementAndGet() + "@example.com";
+            send(recorder, "POST /users", jsonPost("/users", new CreateUserRequest(email.substring(0, email.indexOf('@')), email)));
+        } else {
+            double read = random.nextDouble();
+            SyntheticPopulation.Group group = population.pickGroup(random);
+            String email = URLEncoder.encode(group.members().get(random.nextInt(group.members().size())), StandardCharsets.UTF_8);
+            if (read < 0.45) {
+                send(recorder, "GET /balances/raw", get("/balances/raw?email=" + email));
+            } else if (read < 0.9) {
+                send(recorder, "GET /balances/simplified", get("/balances/simplified?email=" + email));
+            } else {
+                send(recorder, "GET /users", get("/users"));
+            }
+        }
+    }
+
+    private CreateExpenseRequest expense(SyntheticPopulation.Group group, Random random) {
+        List<String> participants = SyntheticPopulation.pickParticipants(group, random);
+        return CreateExpenseRequest.builder()
+                .description("Expense")
+                .amount(BigDecimal.valueOf(100 + random.nextInt(100_000), 2))
+                .paidByEmail(participants.get(0))
+                .splitType(SplitType.EQUAL)
+                .participants(participants.stream().map(email -> new ParticipantDTO(email, null)).toList())
+                .groupId(groupIds.get(group.name()))
+                .build();
+    }
+
+    private void send(LatencyRecorder recorder, String endpoint, HttpRequest request) throws InterruptedException {
+        long started = System.nanoTime();
+        boolean success;
+        try {
+            success = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+        } catch (IOException e) {
+            success = false;
+        }
+        recorder.record(endpoint, System.nanoTime() - started, success);
+    }
+
+    private JsonNode post(String path, Object body) throws Exception {
+        HttpResponse<String> response = client.send(jsonPost(path, body), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("POST " + path + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpRequest jsonPost(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void runAll(List<Callable<Object>> tasks) throws Exception {
+        for (Future<Object> future : clients.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+}
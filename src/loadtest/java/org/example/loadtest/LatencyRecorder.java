@@ -0,0 +1,73 @@
+package org.example.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and errors per endpoint, recorded concurrently by the load test clients.
+ */
+final class LatencyRecorder {
+
+    private static final class Endpoint {
+        final Histogram latencies = new ConcurrentHistogram(3);
+        final AtomicLong errors = new AtomicLong();
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean success) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        if (success) {
+            stats.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+        } else {
+            stats.errors.incrementAndGet();
+        }
+    }
+
+    long errors() {
+        return endpoints.values().stream().mapToLong(stats -> stats.errors.get()).sum();
+    }
+
+    /**
+     * Requests, errors, throughput and p50/p95/p99/max latency in milliseconds per endpoint, and over all endpoints.
+     */
+    Map<String, Map<String, Object>> summary(double seconds) {
+        Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (String name : endpoints.keySet().stream().sorted().toList()) {
+            Endpoint stats = endpoints.get(name);
+            total.add(stats.latencies);
+            totalErrors += stats.errors.get();
+            summary.put(name, summarize(stats.latencies, stats.errors.get(), seconds));
+        }
+        summary.put("total", summarize(total, totalErrors, seconds));
+        return summary;
+    }
+
+    private static Map<String, Object> summarize(Histogram latencies, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latencies.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughputPerSecond", round(latencies.getTotalCount() / seconds));
+        summary.put("p50Ms", millis(latencies.getValueAtPercentile(50)));
+        summary.put("p95Ms", millis(latencies.getValueAtPercentile(95)));
+        summary.put("p99Ms", millis(latencies.getValueAtPercentile(99)));
+        summary.put("maxMs", millis(latencies.getMaxValue()));
+        return summary;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
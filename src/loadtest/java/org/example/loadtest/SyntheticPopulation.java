@@ -0,0 +1,97 @@
+package org.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic population of users and groups for load tests.
+ * Group sizes and the number of expenses per group both follow a Pareto distribution: most groups are
+ * a few friends splitting the odd bill, while a handful of large, busy groups carry much of the traffic.
+ */
+final class SyntheticPopulation {
+
+    private static final int MIN_GROUP_SIZE = 2;
+    private static final int MAX_GROUP_SIZE = 50;
+    private static final double GROUP_SIZE_ALPHA = 1.8;
+    private static final double ACTIVITY_ALPHA = 1.2;
+    private static final int MAX_PARTICIPANTS = 8;
+
+    record Group(String name, List<String> members, int expenses) {
+    }
+
+    final List<String> users;
+    final List<Group> groups;
+    private final double[] cumulativeActivity;
+
+    private SyntheticPopulation(List<String> users, List<Group> groups) {
+        this.users = users;
+        this.groups = groups;
+        this.cumulativeActivity = new double[groups.size()];
+        double total = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            total += groups.get(i).expenses() + 1;
+            cumulativeActivity[i] = total;
+        }
+    }
+
+    static SyntheticPopulation generate(int userCount, int groupCount, int expenseCount, long seed) {
+        Random random = new Random(seed);
+
+        List<String> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add("user" + i + "@example.com");
+        }
+
+        double[] activity = new double[groupCount];
+        double totalActivity = 0;
+        for (int i = 0; i < groupCount; i++) {
+            activity[i] = pareto(random, 1, ACTIVITY_ALPHA);
+            totalActivity += activity[i];
+        }
+
+        List<Group> groups = new ArrayList<>(groupCount);
+        int assigned = 0;
+        for (int i = 0; i < groupCount; i++) {
+            int size = (int) Math.min(Math.min(MAX_GROUP_SIZE, userCount), pareto(random, MIN_GROUP_SIZE, GROUP_SIZE_ALPHA));
+            Set<String> members = new LinkedHashSet<>();
+            while (members.size() < size) {
+                members.add(users.get(random.nextInt(userCount)));
+            }
+            int expenses = i == groupCount - 1
+                    ? expenseCount - assigned
+                    : (int) Math.min(expenseCount - assigned, Math.round(expenseCount * activity[i] / totalActivity));
+            assigned += expenses;
+            groups.add(new Group("Group " + i, List.copyOf(members), expenses));
+        }
+
+        return new SyntheticPopulation(users, groups);
+    }
+
+    /**
+     * Picks a group with a probability proportional to its seeded activity, so busy groups stay busy under load.
+     */
+    Group pickGroup(Random random) {
+        double target = random.nextDouble() * cumulativeActivity[cumulativeActivity.length - 1];
+        int index = Arrays.binarySearch(cumulativeActivity, target);
+        return groups.get(index >= 0 ? index : -index - 1);
+    }
+
+    /**
+     * Picks the participants of an expense in the group; the first one pays.
+     */
+    static List<String> pickParticipants(Group group, Random random) {
+        List<String> members = new ArrayList<>(group.members());
+        Collections.shuffle(members, random);
+        int count = MIN_GROUP_SIZE + random.nextInt(Math.min(members.size(), MAX_PARTICIPANTS) - MIN_GROUP_SIZE + 1);
+        return members.subList(0, count);
+    }
+
+    private static double pareto(Random random, double minimum, double alpha) {
+        return minimum / Math.pow(1 - random.nextDouble(), 1 / alpha);
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.controller;
+
+import org.example.dto.SpendingAnalyticsResponse;
+import org.example.service.DateWindow;
+import org.example.service.LedgerProjector;
+import org.example.service.SpendingAnalyticsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+
+    private final SpendingAnalyticsService analyticsService;
+    private final LedgerProjector ledgerProjector;
+
+    public AnalyticsController(SpendingAnalyticsService analyticsService, LedgerProjector ledgerProjector) {
+        this.analyticsService = analyticsService;
+        this.ledgerProjector = ledgerProjector;
+    }
+
+    @GetMapping("/spending")
+    public ResponseEntity<SpendingAnalyticsResponse> getSpending(@RequestParam String email,
+                                                                 @RequestParam(defaultValue = "5") int top,
+                                                                 @RequestParam(required = false) String after,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        DateWindow window = DateWindow.of(from, to);
+        ledgerProjector.awaitVisible(after);
+        return ResponseEntity.ok(analyticsService.getSpending(email, window, top));
+    }
+}
@@ -4,30 +4,56 @@ package org.example.controller;
 import org.example.dto.RawBalanceResponse;
 import org.example.dto.SimplifiedBalanceResponse;
 import org.example.service.BalanceService;
+import org.example.service.DateWindow;
+import org.example.service.LedgerProjector;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/balances")
 public class BalanceController {
 
     private final BalanceService balanceService;
+    private final LedgerProjector ledgerProjector;
 
-    public BalanceController(BalanceService balanceService) {
+    public BalanceController(BalanceService balanceService, LedgerProjector ledgerProjector) {
         this.balanceService = balanceService;
+        this.ledgerProjector = ledgerProjector;
     }
 
     @GetMapping("/raw")
-    public ResponseEntity<RawBalanceResponse> getRawBalance(@RequestParam String email) {
-        return ResponseEntity.ok(balanceService.getRawBalance(email));
+    public ResponseEntity<RawBalanceResponse> getRawBalance(@RequestParam String email,
+                                                            @RequestParam(required = false) String after,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                            WebRequest request) {
+        DateWindow window = DateWindow.of(from, to);
+        ledgerProjector.awaitVisible(after);
+        if (request.checkNotModified(balanceService.getRawBalanceTag(email))) {
+            return null;
+        }
+        return ResponseEntity.ok(balanceService.getRawBalance(email, window));
     }
 
     @GetMapping("/simplified")
-    public ResponseEntity<SimplifiedBalanceResponse> getSimplifiedBalance(@RequestParam String email) {
-        return ResponseEntity.ok(balanceService.getSimplifiedBalance(email));
+    public ResponseEntity<SimplifiedBalanceResponse> getSimplifiedBalance(@RequestParam String email,
+                                                                          @RequestParam(required = false) String after,
+                                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                          WebRequest request) {
+        DateWindow window = DateWindow.of(from, to);
+        ledgerProjector.awaitVisible(after);
+        if (request.checkNotModified(balanceService.getSimplifiedBalanceTag(email))) {
+            return null;
+        }
+        return ResponseEntity.ok(balanceService.getSimplifiedBalance(email, window));
     }
 
 }
@@ -1,20 +1,49 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.BatchExpenseResponse;
 import org.example.dto.CreateExpenseRequest;
 import org.example.dto.CreateExpenseResponse;
+import org.example.dto.ExpenseImportReport;
+import org.example.dto.ExpensePage;
+import org.example.dto.ImportFormat;
 import org.example.dto.UserExpenseSummary;
+import org.example.service.DateWindow;
+import org.example.service.ExpenseImportService;
 import org.example.service.ExpenseService;
+import org.example.service.UserService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/expenses")
 public class ExpenseController {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final ExpenseService expenseService;
+    private final ExpenseImportService expenseImportService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
 
-    public ExpenseController(ExpenseService expenseService) {
+    public ExpenseController(ExpenseService expenseService, ExpenseImportService expenseImportService,
+                             UserService userService, ObjectMapper objectMapper) {
         this.expenseService = expenseService;
+        this.expenseImportService = expenseImportService;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -24,9 +53,62 @@ public class ExpenseController {
         return ResponseEntity.ok(expense);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchExpenseResponse> addExpenses(@RequestBody List<CreateExpenseRequest> requests) {
+        return ResponseEntity.ok(expenseService.createExpenses(requests));
+    }
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ExpenseImportReport> importExpenses(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                              InputStream body) {
+        ImportFormat format = TEXT_CSV.isCompatibleWith(contentType) ? ImportFormat.CSV : ImportFormat.NDJSON;
+        return ResponseEntity.ok(expenseImportService.importExpenses(body, format));
+    }
+
     @GetMapping
     public ResponseEntity<UserExpenseSummary> getExpensesByUserEmail(@RequestParam String email,
-                                                                     @RequestParam(required = false, defaultValue = "false") boolean showParticipants) {
-        return ResponseEntity.ok(expenseService.getExpensesByUserEmail(email, showParticipants));
+                                                                     @RequestParam(required = false, defaultValue = "false") boolean showParticipants,
+                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                     WebRequest request) {
+        DateWindow window = DateWindow.of(from, to);
+        if (request.checkNotModified(expenseService.getExpensesTag(email))) {
+            return null;
+        }
+        return ResponseEntity.ok(expenseService.getExpensesByUserEmail(email, showParticipants, window));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<ExpensePage> getExpensePage(@RequestParam String email,
+                                                      @RequestParam(required = false, defaultValue = "50") int limit,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(required = false, defaultValue = "false") boolean showParticipants,
+                                                      WebRequest request) {
+        if (request.checkNotModified(expenseService.getExpensesTag(email))) {
+            return null;
+        }
+        return ResponseEntity.ok(expenseService.getExpensePageByUserEmail(email, limit, after, showParticipants));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamExpenses(@RequestParam String email,
+                                                                @RequestParam(required = false, defaultValue = "false") boolean showParticipants) {
+        // Validate before streaming starts, so an unknown user still gets a 404 instead of a truncated body.
+        userService.getUserByEmail(email);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                expenseService.streamExpensesByUserEmail(email, showParticipants, row -> {
+                    try {
+                        generator.writeObject(row);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 }
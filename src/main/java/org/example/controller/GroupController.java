@@ -0,0 +1,62 @@
+package org.example.controller;
+
+import org.example.dto.CreateExpenseRequest;
+import org.example.dto.CreateExpenseResponse;
+import org.example.dto.CreateGroupRequest;
+import org.example.dto.GroupBalanceResponse;
+import org.example.dto.GroupResponse;
+import org.example.service.BalanceService;
+import org.example.service.ExpenseService;
+import org.example.service.GroupService;
+import org.example.service.LedgerProjector;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/groups")
+public class GroupController {
+
+    private final GroupService groupService;
+    private final ExpenseService expenseService;
+    private final BalanceService balanceService;
+    private final LedgerProjector ledgerProjector;
+
+    public GroupController(GroupService groupService, ExpenseService expenseService, BalanceService balanceService,
+                           LedgerProjector ledgerProjector) {
+        this.groupService = groupService;
+        this.expenseService = expenseService;
+        this.balanceService = balanceService;
+        this.ledgerProjector = ledgerProjector;
+    }
+
+    @PostMapping
+    public ResponseEntity<GroupResponse> createGroup(@RequestBody CreateGroupRequest request) {
+        return ResponseEntity.ok(groupService.createGroup(request));
+    }
+
+    @GetMapping("/{groupId}")
+    public ResponseEntity<GroupResponse> getGroup(@PathVariable Long groupId) {
+        return ResponseEntity.ok(groupService.getGroupResponse(groupId));
+    }
+
+    @PostMapping("/{groupId}/expenses")
+    public ResponseEntity<CreateExpenseResponse> addExpense(@PathVariable Long groupId, @RequestBody CreateExpenseRequest request) {
+        request.setGroupId(groupId);
+        return ResponseEntity.ok(expenseService.createExpense(request));
+    }
+
+    @GetMapping("/{groupId}/expenses")
+    public ResponseEntity<List<CreateExpenseResponse>> getExpenses(@PathVariable Long groupId,
+                                                                   @RequestParam(required = false, defaultValue = "false") boolean showParticipants) {
+        return ResponseEntity.ok(expenseService.getExpensesByGroup(groupId, showParticipants));
+    }
+
+    @GetMapping("/{groupId}/balances/simplified")
+    public ResponseEntity<GroupBalanceResponse> getSimplifiedBalance(@PathVariable Long groupId,
+                                                                     @RequestParam(required = false) String after) {
+        ledgerProjector.awaitVisible(after);
+        return ResponseEntity.ok(balanceService.getGroupSimplifiedBalance(groupId));
+    }
+}
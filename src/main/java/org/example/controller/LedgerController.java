@@ -0,0 +1,54 @@
+package org.example.controller;
+
+import org.example.dto.LedgerRebuildReport;
+import org.example.exception.ExpenseSyncException;
+import org.example.exception.LedgerNotCaughtUpException;
+import org.example.service.BalanceService;
+import org.example.service.LedgerProjector;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/ledger")
+public class LedgerController {
+
+    private final BalanceService balanceService;
+    private final LedgerProjector ledgerProjector;
+
+    public LedgerController(BalanceService balanceService, LedgerProjector ledgerProjector) {
+        this.balanceService = balanceService;
+        this.ledgerProjector = ledgerProjector;
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<LedgerRebuildReport> rebuildLedger(@RequestParam(required = false, defaultValue = "true") boolean repair) {
+        awaitProjections();
+        if (repair) {
+            // The rebuild applies the expenses of failed projections, so they must not be retried after it.
+            return ResponseEntity.ok(ledgerProjector.repairing(() -> balanceService.rebuildLedger(true)));
+        }
+        return ResponseEntity.ok(balanceService.rebuildLedger(false));
+    }
+
+    @PostMapping("/replay")
+    public ResponseEntity<LedgerRebuildReport> replayLedger(@RequestParam(required = false, defaultValue = "true") boolean repair) {
+        awaitProjections();
+        if (repair && ledgerProjector.hasFailedProjections()) {
+            // A replay only repairs net balances, so a later retry would apply the failed expenses to them twice.
+            throw new ExpenseSyncException("Failed ledger projections are waiting to be retried; rebuild the ledger instead.");
+        }
+        return ResponseEntity.ok(balanceService.replayLedger(repair));
+    }
+
+    /**
+     * Committed expenses not yet projected would otherwise show up as discrepancies, and be applied twice on repair.
+     */
+    private void awaitProjections() {
+        if (!ledgerProjector.awaitIdle()) {
+            throw new LedgerNotCaughtUpException("Ledger projections are still pending; retry shortly.");
+        }
+    }
+}
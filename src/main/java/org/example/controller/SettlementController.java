@@ -0,0 +1,60 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.SimplifiedBalanceResponse;
+import org.example.service.BalanceService;
+import org.example.service.LedgerProjector;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/settlement")
+public class SettlementController {
+
+    private final BalanceService balanceService;
+    private final LedgerProjector ledgerProjector;
+    private final ObjectMapper objectMapper;
+
+    public SettlementController(BalanceService balanceService, LedgerProjector ledgerProjector, ObjectMapper objectMapper) {
+        this.balanceService = balanceService;
+        this.ledgerProjector = ledgerProjector;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSettlementPlan(@RequestParam(required = false) String after) {
+        ledgerProjector.awaitVisible(after);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                balanceService.streamSettlementPlan(txn -> {
+                    try {
+                        generator.writeObject(txn);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<List<SimplifiedBalanceResponse>> getSimplifiedBalances(@RequestParam List<String> emails,
+                                                                                 @RequestParam(required = false) String after) {
+        ledgerProjector.awaitVisible(after);
+        return ResponseEntity.ok(balanceService.getSimplifiedBalances(emails));
+    }
+}
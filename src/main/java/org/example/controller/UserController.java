@@ -1,5 +1,6 @@
 package org.example.controller;
 
+import org.example.dto.BatchUserResponse;
 import org.example.dto.CreateUserRequest;
 import org.example.dto.UserResponse;
 import org.example.model.User;
@@ -23,6 +24,11 @@ public class UserController {
         return ResponseEntity.ok(userService.createUser(request));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchUserResponse> createUsers(@RequestBody List<CreateUserRequest> requests) {
+        return ResponseEntity.ok(userService.createUsers(requests));
+    }
+
     @GetMapping
     public ResponseEntity<List<UserResponse>> getAllUsers(@RequestParam(required = false) String email) {
         return ResponseEntity.ok(userService.getAllUsers(email));
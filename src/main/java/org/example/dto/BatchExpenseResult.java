@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchExpenseResult {
+    private int index;
+    private BatchItemStatus status;
+    private CreateExpenseResponse expense;
+    private String error;
+}
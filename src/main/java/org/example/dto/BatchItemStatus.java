@@ -0,0 +1,6 @@
+package org.example.dto;
+
+public enum BatchItemStatus {
+    CREATED,
+    FAILED
+}
@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -14,4 +15,7 @@ public class CreateExpenseRequest {
     private String paidByEmail;
     private SplitType splitType;
     private List<ParticipantDTO> participants;
+    private Long groupId;
+    // When the expense happened, for recording history; must not be in the future, defaults to now.
+    private LocalDateTime createdAt;
 }
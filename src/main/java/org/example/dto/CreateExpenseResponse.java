@@ -24,4 +24,5 @@ public class CreateExpenseResponse {
     public List<ParticipantBreakdownDTO> participants;
     public LocalDateTime createdAt;
     public BigDecimal netTransactionBalance;
+    public String ledgerToken;
 }
@@ -0,0 +1,11 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One participant of one expense, with the expense's amount, payer and creation time, read without hydrating
+ * entities to load the columnar expense fact store.
+ */
+public record ExpenseFactRow(Long expenseId, BigDecimal amount, Long payerId, LocalDateTime createdAt, Long participantId) {
+}
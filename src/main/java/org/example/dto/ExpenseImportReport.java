@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExpenseImportReport {
+    private ImportFormat format;
+    private long rowsRead;
+    private long created;
+    private long failed;
+    private int chunks;
+    private List<ImportRowError> errors;
+    private boolean errorsTruncated;
+    private String ledgerToken;
+}
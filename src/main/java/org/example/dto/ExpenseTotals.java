@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import java.util.List;
+
+/**
+ * Per-user totals over the whole expense history, with one row per user, user pair or group member
+ * rather than per expense. Rows are keyed by user id, so users are only resolved when a response needs them.
+ * - paid: total amount each user paid
+ * - owed: total equal share each user owes across the expenses they took part in
+ * - owedToPayer: total equal share each participant owes each payer, excluding what payers owe themselves
+ * - groupPaid / groupOwed: the same paid and owed totals, restricted to each group's expenses
+ */
+public record ExpenseTotals(long expenseCount,
+                            List<UserAmount> paid,
+                            List<UserAmount> owed,
+                            List<UserPairAmount> owedToPayer,
+                            List<GroupUserAmount> groupPaid,
+                            List<GroupUserAmount> groupOwed) {
+}
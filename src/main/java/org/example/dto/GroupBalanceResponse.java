@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupBalanceResponse {
+    private Long groupId;
+    private String name;
+    private List<GroupMemberBalance> balances;
+    private List<SimplifiedTransaction> transactions;
+}
@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated amount of one member within one group, summed by the database.
+ */
+public record GroupUserAmount(Long groupId, Long userId, BigDecimal amount) {
+}
@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LedgerDiscrepancy {
+    private String email;
+    private String counterpartyEmail;
+    private Long groupId;
+    private BigDecimal storedBalance;
+    private BigDecimal recomputedBalance;
+}
@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LedgerRebuildReport {
+    private long expensesScanned;
+    private int usersChecked;
+    private List<LedgerDiscrepancy> discrepancies;
+    private boolean repaired;
+}
@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import java.util.List;
+
+/**
+ * Database-side aggregates of the expense history per calendar month, from which the monthly rollups are rebuilt.
+ * Owed amounts are equal shares rounded to cents, like the ledger applies them.
+ */
+public record MonthlyExpenseTotals(List<MonthlyUserAmount> paid,
+                                   List<MonthlyUserAmount> owed,
+                                   List<MonthlyUserPairAmount> owedToPayer) {
+}
@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Aggregated amount of one user over the expenses of one calendar month, summed by the database.
+ */
+public record MonthlyUserAmount(Long userId, LocalDate month, BigDecimal amount) {
+
+    public MonthlyUserAmount(Long userId, Integer year, Integer month, BigDecimal amount) {
+        this(userId, LocalDate.of(year, month, 1), amount);
+    }
+}
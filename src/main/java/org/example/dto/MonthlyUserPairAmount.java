@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Aggregated amount a debtor owes a creditor over the shared expenses of one calendar month, summed by the database.
+ */
+public record MonthlyUserPairAmount(Long debtorId, Long creditorId, LocalDate month, BigDecimal amount) {
+
+    public MonthlyUserPairAmount(Long debtorId, Long creditorId, Integer year, Integer month, BigDecimal amount) {
+        this(debtorId, creditorId, LocalDate.of(year, month, 1), amount);
+    }
+}
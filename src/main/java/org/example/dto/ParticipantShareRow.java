@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-model row of one participant of an expense and their share.
+ */
+public record ParticipantShareRow(Long expenseId, String name, String email, BigDecimal shareAmount) {
+}
@@ -6,14 +6,13 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
 
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class RawBalanceResponse {
-    private Map<String, String> user;
+    private UserRef user;
     private BigDecimal netBalance;
     private List<RawTransaction> transactions;
 }
@@ -1,18 +1,35 @@
 package org.example.dto;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.Map;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonSerialize(using = RawTransaction.Serializer.class)
 public class RawTransaction {
 
-    private Map<String, String> from;
-    private Map<String, String> to;
+    private UserRef from;
+    private UserRef to;
     private BigDecimal amount;
+
+    static final class Serializer extends StdSerializer<RawTransaction> {
+
+        Serializer() {
+            super(RawTransaction.class);
+        }
+
+        @Override
+        public void serialize(RawTransaction txn, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            TransactionJson.write(gen, txn.getFrom(), txn.getTo(), txn.getAmount());
+        }
+    }
 }
@@ -6,13 +6,12 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class SimplifiedBalanceResponse {
-    private Map<String, String> user;
+    private UserRef user;
     private BigDecimal netBalance;
     private List<SimplifiedTransaction> transactions;
 }
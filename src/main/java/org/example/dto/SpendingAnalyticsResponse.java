@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpendingAnalyticsResponse {
+    private UserRef user;
+    private long expenseCount;
+    private BigDecimal averageExpenseSize;
+    private List<MonthlySpend> months;
+    private List<CounterpartySpend> topCounterparties;
+}
@@ -0,0 +1,45 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Writes a transaction as {@code {"from": ..., "to": ..., "amount": ...}} through the streaming generator,
+ * with pre-encoded field names and user references, so large transaction lists are written one element
+ * at a time without any reflection or intermediate maps.
+ */
+final class TransactionJson {
+
+    private static final SerializedString FROM = new SerializedString("from");
+    private static final SerializedString TO = new SerializedString("to");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+
+    private TransactionJson() {
+    }
+
+    static void write(JsonGenerator gen, UserRef from, UserRef to, BigDecimal amount) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(FROM);
+        writeRef(gen, from);
+        gen.writeFieldName(TO);
+        writeRef(gen, to);
+        gen.writeFieldName(AMOUNT);
+        if (amount == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(amount);
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeRef(JsonGenerator gen, UserRef ref) throws IOException {
+        if (ref == null) {
+            gen.writeNull();
+        } else {
+            gen.writeRawValue(ref.json());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated amount of one user, summed by the database.
+ */
+public record UserAmount(Long userId, BigDecimal amount) {
+}
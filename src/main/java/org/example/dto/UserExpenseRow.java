@@ -0,0 +1,11 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-model row of an expense as seen by one participant: the expense columns, its payer and the participant's share.
+ */
+public record UserExpenseRow(Long id, String description, BigDecimal amount, LocalDateTime createdAt,
+                             String payerName, String payerEmail, BigDecimal userShare) {
+}
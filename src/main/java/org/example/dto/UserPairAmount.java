@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated amount a debtor owes a creditor across all their shared expenses, summed by the database.
+ */
+public record UserPairAmount(Long debtorId, Long creditorId, BigDecimal amount) {
+}
@@ -0,0 +1,41 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Reference to a user in balance responses, written as {@code {"name": ..., "email": ...}}.
+ * The JSON fragment is encoded once, when the reference is created, and then written verbatim, so a user
+ * appearing in many transactions is not serialized again each time. References are cached per user,
+ * see {@code UserService#getUserRef}.
+ */
+@JsonSerialize(using = UserRef.Serializer.class)
+public record UserRef(String name, String email, String json) {
+
+    @JsonCreator
+    public static UserRef of(@JsonProperty("name") String name, @JsonProperty("email") String email) {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        String json = "{\"name\":\"" + new String(encoder.quoteAsString(name))
+                + "\",\"email\":\"" + new String(encoder.quoteAsString(email)) + "\"}";
+        return new UserRef(name, email, json);
+    }
+
+    static final class Serializer extends StdSerializer<UserRef> {
+
+        Serializer() {
+            super(UserRef.class);
+        }
+
+        @Override
+        public void serialize(UserRef ref, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(ref.json());
+        }
+    }
+}
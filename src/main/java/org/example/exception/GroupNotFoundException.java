@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class GroupNotFoundException extends RuntimeException {
+    public GroupNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class LedgerNotCaughtUpException extends RuntimeException {
+    public LedgerNotCaughtUpException(String message) {
+        super(message);
+    }
+}
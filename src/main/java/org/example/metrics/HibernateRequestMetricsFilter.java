@@ -0,0 +1,55 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the Hibernate queries, entity loads, collection fetches and JDBC statements of every request,
+ * tagged like {@code http.server.requests} with the method and the matched URI pattern.
+ * Work done on other threads, such as streamed response bodies or ledger projections, is not included.
+ */
+@Component
+public class HibernateRequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    public HibernateRequestMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestStatistics.Counts counts = RequestStatistics.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestStatistics.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            record("expensesync.request.queries", "HQL/JPQL queries executed per request", request, uri, counts.queries());
+            record("expensesync.request.entity.loads", "Entities loaded per request", request, uri, counts.entityLoads());
+            record("expensesync.request.collection.fetches", "Collections fetched per request", request, uri, counts.collectionFetches());
+            record("expensesync.request.statements", "JDBC statements prepared per request", request, uri, counts.statements());
+        }
+    }
+
+    private void record(String name, String description, HttpServletRequest request, String uri, long value) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(value);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+/**
+ * Hibernate statistics that, besides the usual session-factory-wide counters, attribute queries, entity loads,
+ * collection fetches and JDBC statements to the thread that caused them, between {@link #begin()} and {@link #end()}.
+ * <p>
+ * Global statistics deltas cannot be used per request, as concurrent requests and the ledger projector
+ * would be counted together.
+ */
+public class RequestStatistics extends StatisticsImpl {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    /**
+     * What the current thread issued since {@link #begin()}.
+     */
+    public static final class Counts {
+        private long queries;
+        private long entityLoads;
+        private long collectionFetches;
+        private long statements;
+
+        public long queries() {
+            return queries;
+        }
+
+        public long entityLoads() {
+            return entityLoads;
+        }
+
+        public long collectionFetches() {
+            return collectionFetches;
+        }
+
+        public long statements() {
+            return statements;
+        }
+    }
+
+    public RequestStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    /**
+     * Starts counting for the current thread.
+     */
+    public static Counts begin() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    /**
+     * Stops counting for the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void queryExecuted(String hql, int rows, long time) {
+        super.queryExecuted(hql, rows, time);
+        Counts counts = CURRENT.get();
+        if (counts != null) counts.queries++;
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+        super.loadEntity(entityName);
+        Counts counts = CURRENT.get();
+        if (counts != null) counts.entityLoads++;
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+        super.fetchCollection(role);
+        Counts counts = CURRENT.get();
+        if (counts != null) counts.collectionFetches++;
+    }
+
+    @Override
+    public void prepareStatement() {
+        super.prepareStatement();
+        Counts counts = CURRENT.get();
+        if (counts != null) counts.statements++;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Logs requests that execute more than {@code statement-threshold} JDBC statements or spend more than
+ * {@code time-threshold} executing them, with their statement count and total SQL time.
+ * Enabled with {@code expensesync.slow-request-log.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "expensesync.slow-request-log", name = "enabled", havingValue = "true")
+public class SlowRequestLogFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowRequestLogFilter.class);
+
+    private final long statementThreshold;
+    private final Duration timeThreshold;
+
+    public SlowRequestLogFilter(@Value("${expensesync.slow-request-log.statement-threshold:20}") long statementThreshold,
+                                @Value("${expensesync.slow-request-log.time-threshold:200ms}") Duration timeThreshold) {
+        this.statementThreshold = statementThreshold;
+        this.timeThreshold = timeThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long started = System.nanoTime();
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.begin()) {
+            chain.doFilter(request, response);
+
+            if (scope.statements() > statementThreshold || scope.elapsed().compareTo(timeThreshold) > 0) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                log.warn("Slow request {} {} ({}): {} statements, {} ms in SQL, {} ms total",
+                        request.getMethod(), request.getRequestURI(), pattern, scope.statements(),
+                        scope.elapsed().toMillis(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+            }
+        }
+    }
+}
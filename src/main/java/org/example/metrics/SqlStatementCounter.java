@@ -0,0 +1,95 @@
+package org.example.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Counts the JDBC statements a thread executes, and the time spent executing them, within open scopes.
+ * A batch counts as one statement. Scopes may nest, e.g. a test measuring a request that the
+ * slow-request log measures too; each scope sees every statement executed while it is open.
+ * <p>
+ * Statements are observed through a datasource-proxy listener, see {@link SqlStatementCountingPostProcessor},
+ * so whatever issues them (Hibernate, Spring Data or plain JDBC) is counted.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<List<Scope>> ACTIVE = ThreadLocal.withInitial(ArrayList::new);
+    private static final ThreadLocal<Long> STARTED = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    /**
+     * Statements executed by the current thread while the scope is open.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Predicate<String> counted;
+        private long statements;
+        private long elapsedNanos;
+
+        private Scope(Predicate<String> counted) {
+            this.counted = counted;
+        }
+
+        public long statements() {
+            return statements;
+        }
+
+        public Duration elapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        @Override
+        public void close() {
+            ACTIVE.get().remove(this);
+        }
+    }
+
+    /**
+     * Opens a scope on the current thread; close it on the same thread.
+     */
+    public static Scope begin() {
+        return begin(sql -> true);
+    }
+
+    /**
+     * Opens a scope on the current thread that only counts statements whose SQL matches {@code counted},
+     * e.g. to leave out id generator calls whose frequency depends on the allocation size.
+     */
+    public static Scope begin(Predicate<String> counted) {
+        Scope scope = new Scope(counted);
+        ACTIVE.get().add(scope);
+        return scope;
+    }
+
+    static final class Listener implements QueryExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (!ACTIVE.get().isEmpty()) {
+                STARTED.set(System.nanoTime());
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            Long started = STARTED.get();
+            if (started == null) return;
+            STARTED.remove();
+
+            long elapsed = System.nanoTime() - started;
+            String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+            for (Scope scope : ACTIVE.get()) {
+                if (!scope.counted.test(sql)) continue;
+                scope.statements++;
+                scope.elapsedNanos += elapsed;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.metrics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every data source in a datasource-proxy that reports executed statements to {@link SqlStatementCounter}.
+ * The proxy only takes timestamps while a scope is open on the executing thread.
+ */
+@Component
+public class SqlStatementCountingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .listener(new SqlStatementCounter.Listener())
+                    .build();
+        }
+        return bean;
+    }
+}
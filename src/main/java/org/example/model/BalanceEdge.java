@@ -0,0 +1,56 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Net amount the debtor owes the creditor across all shared expenses.
+ * Every pair is stored in both directions with opposite signs, so all of a user's
+ * counterparties can be read with a single range scan on {@code debtor_id}.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(BalanceEdgeId.class)
+@Table(name = "balance_edges")
+public class BalanceEdge {
+    @Id
+    @Column(name = "debtor_id")
+    private Long debtorId;
+
+    @Id
+    @Column(name = "creditor_id")
+    private Long creditorId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "debtor_id", insertable = false, updatable = false)
+    private User debtor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "creditor_id", insertable = false, updatable = false)
+    private User creditor;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    public BalanceEdge(User debtor, User creditor, BigDecimal amount) {
+        this.debtorId = debtor.getId();
+        this.creditorId = creditor.getId();
+        this.debtor = debtor;
+        this.creditor = creditor;
+        this.amount = amount;
+    }
+
+    public BalanceEdge(Long debtorId, Long creditorId, BigDecimal amount) {
+        this.debtorId = debtorId;
+        this.creditorId = creditorId;
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checkpoint of every user's net balance after applying the expense journal up to and including {@code sequence}.
+ */
+@Entity
+@Getter
+@NoArgsConstructor
+@Immutable
+@Table(name = "balance_snapshots")
+public class BalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long sequence;
+
+    @ElementCollection
+    @CollectionTable(name = "balance_snapshot_entries", joinColumns = @JoinColumn(name = "snapshot_id"))
+    @MapKeyColumn(name = "user_id")
+    @Column(name = "net_balance", nullable = false, precision = 19, scale = 2)
+    private Map<Long, BigDecimal> balances = new HashMap<>();
+
+    @Column(nullable = false)
+    private LocalDateTime takenAt;
+
+    public BalanceSnapshot(Long sequence, Map<Long, BigDecimal> balances, LocalDateTime takenAt) {
+        this.sequence = sequence;
+        this.balances = new HashMap<>(balances);
+        this.takenAt = takenAt;
+    }
+}
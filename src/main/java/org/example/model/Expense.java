@@ -14,19 +14,29 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+        @Index(name = "idx_expense_group_created", columnList = "group_id, createdAt")
+})
 public class Expense {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_seq")
+    @SequenceGenerator(name = "expense_seq", sequenceName = "expense_seq", allocationSize = 50)
     private Long id;
     private String description;
     private BigDecimal amount;
     private LocalDateTime createdAt;
 
+    // Stored so equal shares can be summed without counting participant rows; null for rows that predate it.
+    private Integer participantCount;
+
     @ManyToOne
     private User paidBy;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id")
+    private ExpenseGroup group;
+
     @OneToMany(mappedBy = "expense", cascade = CascadeType.ALL)
     private List<ExpenseParticipant> participants = new ArrayList<>();
 }
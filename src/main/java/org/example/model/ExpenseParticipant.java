@@ -13,7 +13,8 @@ import java.math.BigDecimal;
 @Builder
 public class ExpenseParticipant {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_participant_seq")
+    @SequenceGenerator(name = "expense_participant_seq", sequenceName = "expense_participant_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,58 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable journal event appended whenever an expense is recorded.
+ * The journal sequence orders events; per-user balances can be derived from the events alone,
+ * using the same equal shares as the ledger.
+ */
+@Entity
+@Getter
+@NoArgsConstructor
+@Immutable
+@Table(name = "expense_journal", indexes = {
+        @Index(name = "idx_expense_journal_recorded", columnList = "recordedAt")
+})
+public class ExpenseRecorded {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_journal_seq")
+    @SequenceGenerator(name = "expense_journal_seq", sequenceName = "expense_journal_seq", allocationSize = 50)
+    private Long sequence;
+
+    @Column(nullable = false)
+    private Long expenseId;
+
+    private Long groupId;
+
+    @Column(nullable = false)
+    private Long paidById;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @ElementCollection
+    @CollectionTable(name = "expense_journal_participants", joinColumns = @JoinColumn(name = "sequence"))
+    @Column(name = "user_id", nullable = false)
+    private List<Long> participantIds = new ArrayList<>();
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+
+    public ExpenseRecorded(Expense expense, LocalDateTime recordedAt) {
+        this.expenseId = expense.getId();
+        this.groupId = expense.getGroup() == null ? null : expense.getGroup().getId();
+        this.paidById = expense.getPaidBy().getId();
+        this.amount = expense.getAmount();
+        expense.getParticipants().forEach(participant -> participantIds.add(participant.getUser().getId()));
+        this.recordedAt = recordedAt;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Running net balance of a user across the expenses of one group.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(GroupBalanceId.class)
+@Table(name = "group_balances")
+public class GroupBalance {
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal netBalance;
+
+    public GroupBalance(Long groupId, User user, BigDecimal netBalance) {
+        this.groupId = groupId;
+        this.userId = user.getId();
+        this.user = user;
+        this.netBalance = netBalance;
+    }
+
+    public GroupBalance(Long groupId, Long userId, BigDecimal netBalance) {
+        this.groupId = groupId;
+        this.userId = userId;
+        this.netBalance = netBalance;
+    }
+}
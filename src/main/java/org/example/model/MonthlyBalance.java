@@ -0,0 +1,36 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Net balance of a user (amount paid - amount owed) across the expenses created in one calendar month.
+ * Maintained incrementally with the ledger, so balances over a window sum a few rows per user
+ * instead of scanning the expense history.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(MonthlyBalanceId.class)
+@Table(name = "monthly_user_balances")
+public class MonthlyBalance {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // First day of the month.
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal netBalance;
+}
@@ -0,0 +1,40 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Net amount the debtor owes the creditor across the shared expenses created in one calendar month.
+ * Like {@link BalanceEdge}, every pair is stored in both directions with opposite signs, so a user's
+ * counterparties over a window are read with a single range scan on {@code debtor_id}.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(MonthlyEdgeId.class)
+@Table(name = "monthly_balance_edges")
+public class MonthlyEdge {
+    @Id
+    @Column(name = "debtor_id")
+    private Long debtorId;
+
+    @Id
+    @Column(name = "creditor_id")
+    private Long creditorId;
+
+    // First day of the month.
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+}
@@ -0,0 +1,21 @@
+package org.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class MonthlyEdgeId implements Serializable {
+    private Long debtorId;
+    private Long creditorId;
+    private LocalDate monthStart;
+}
@@ -20,8 +20,10 @@ import java.util.UUID;
         @Index(name = "idx_user_email", columnList = "email", unique = true)
 })
 public class User {
+    // Sequence ids, unlike identity columns, let Hibernate batch the inserts of bulk registrations.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false)
@@ -0,0 +1,43 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Running net balance of a user (amount paid - amount owed) across all expenses.
+ * Maintained incrementally whenever an expense is recorded.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "user_balance")
+public class UserBalance {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal netBalance;
+
+    public UserBalance(User user, BigDecimal netBalance) {
+        this.userId = user.getId();
+        this.user = user;
+        this.netBalance = netBalance;
+    }
+
+    public UserBalance(Long userId, BigDecimal netBalance) {
+        this.userId = userId;
+        this.netBalance = netBalance;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.repository;
+
+import org.example.model.BalanceEdge;
+import org.example.model.BalanceEdgeId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface BalanceEdgeRepository extends JpaRepository<BalanceEdge, BalanceEdgeId> {
+
+    @Query("select e from BalanceEdge e join fetch e.creditor where e.debtorId = :debtorId")
+    List<BalanceEdge> findAllByDebtorId(@Param("debtorId") Long debtorId);
+
+    @Query("select new org.example.model.BalanceEdgeId(e.debtorId, e.creditorId) from BalanceEdge e where e.debtorId < e.creditorId")
+    List<BalanceEdgeId> findAllPairs();
+
+    @Modifying
+    @Query("update BalanceEdge e set e.amount = e.amount + :delta where e.debtorId = :debtorId and e.creditorId = :creditorId")
+    int addToEdge(@Param("debtorId") Long debtorId, @Param("creditorId") Long creditorId, @Param("delta") BigDecimal delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from BalanceEdge")
+    void deleteAllEdges();
+}
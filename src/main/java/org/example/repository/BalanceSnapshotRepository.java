@@ -0,0 +1,14 @@
+package org.example.repository;
+
+import org.example.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    Optional<BalanceSnapshot> findFirstByOrderBySequenceDesc();
+
+    void deleteAllBySequenceLessThan(Long sequence);
+}
@@ -0,0 +1,25 @@
+package org.example.repository;
+
+import org.example.model.ExpenseRecorded;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Append-only access to the expense journal, read forward in sequence order.
+ */
+@Repository
+public interface ExpenseJournalRepository extends JpaRepository<ExpenseRecorded, Long> {
+
+    @Query("select e from ExpenseRecorded e where e.sequence > :after and e.sequence <= :upTo order by e.sequence")
+    List<ExpenseRecorded> findRange(@Param("after") long after, @Param("upTo") long upTo, Limit limit);
+
+    @Query("select max(e.sequence) from ExpenseRecorded e where e.recordedAt < :before")
+    Optional<Long> findLastSequenceRecordedBefore(@Param("before") LocalDateTime before);
+}
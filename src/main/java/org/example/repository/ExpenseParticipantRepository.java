@@ -0,0 +1,151 @@
+package org.example.repository;
+
+import jakarta.persistence.QueryHint;
+import org.example.dto.ExpenseFactRow;
+import org.example.dto.GroupUserAmount;
+import org.example.dto.MonthlyUserAmount;
+import org.example.dto.MonthlyUserPairAmount;
+import org.example.dto.ParticipantShareRow;
+import org.example.dto.UserAmount;
+import org.example.dto.UserExpenseRow;
+import org.example.dto.UserPairAmount;
+import org.example.model.ExpenseParticipant;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read queries over participant rows: a user's own rows, each with its expense and payer,
+ * in (createdAt, id) order of the expense, constructor projections for the expense summary,
+ * and per-user aggregates of equal shares, grouped on the user id column so the users table is not joined.
+ */
+@Repository
+public interface ExpenseParticipantRepository extends JpaRepository<ExpenseParticipant, Long> {
+
+    /**
+     * Equal share of a participant in expense {@code e}, rounded half-up to cents like the ledger does.
+     * Participants are only counted for expenses that predate the stored participant count.
+     */
+    String EQUAL_SHARE = "round(e.amount / coalesce(e.participantCount, size(e.participants)), 2)";
+
+    @Query("select p from ExpenseParticipant p join fetch p.expense e join fetch e.paidBy " +
+            "where p.user.email = :email order by e.createdAt, e.id")
+    List<ExpenseParticipant> findFirstPageByUserEmail(@Param("email") String email, Limit limit);
+
+    @Query("select p from ExpenseParticipant p join fetch p.expense e join fetch e.paidBy " +
+            "where p.user.email = :email and (e.createdAt > :createdAt or (e.createdAt = :createdAt and e.id > :id)) " +
+            "order by e.createdAt, e.id")
+    List<ExpenseParticipant> findPageByUserEmailAfter(@Param("email") String email,
+                                                      @Param("createdAt") LocalDateTime createdAt,
+                                                      @Param("id") Long id,
+                                                      Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from ExpenseParticipant p join fetch p.expense e join fetch e.paidBy " +
+            "where p.user.email = :email order by e.createdAt, e.id")
+    Stream<ExpenseParticipant> streamByUserEmail(@Param("email") String email);
+
+    /**
+     * Every participant row with its expense's amount, payer and creation time, grouped by expense.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new org.example.dto.ExpenseFactRow(e.id, e.amount, e.paidBy.id, e.createdAt, p.user.id) " +
+            "from ExpenseParticipant p join p.expense e order by e.id, p.id")
+    Stream<ExpenseFactRow> streamExpenseFacts();
+
+    @Query("select new org.example.dto.UserExpenseRow(e.id, e.description, e.amount, e.createdAt, payer.name, payer.email, p.shareAmount) " +
+            "from ExpenseParticipant p join p.expense e join e.paidBy payer " +
+            "where p.user.email = :email order by e.createdAt, e.id")
+    List<UserExpenseRow> findExpenseRowsByUserEmail(@Param("email") String email);
+
+    @Query("select new org.example.dto.UserExpenseRow(e.id, e.description, e.amount, e.createdAt, payer.name, payer.email, p.shareAmount) " +
+            "from ExpenseParticipant p join p.expense e join e.paidBy payer " +
+            "where p.user.email = :email and e.createdAt >= :start and e.createdAt < :end order by e.createdAt, e.id")
+    List<UserExpenseRow> findExpenseRowsByUserEmailBetween(@Param("email") String email,
+                                                           @Param("start") LocalDateTime start,
+                                                           @Param("end") LocalDateTime end);
+
+    @Query("select new org.example.dto.ParticipantShareRow(p.expense.id, u.name, u.email, p.shareAmount) " +
+            "from ExpenseParticipant p join p.user u " +
+            "where p.expense.id in (select own.expense.id from ExpenseParticipant own where own.user.email = :email) " +
+            "order by p.id")
+    List<ParticipantShareRow> findParticipantRowsOfUserExpenses(@Param("email") String email);
+
+    @Query("select new org.example.dto.ParticipantShareRow(p.expense.id, u.name, u.email, p.shareAmount) " +
+            "from ExpenseParticipant p join p.user u " +
+            "where p.expense.id in (select own.expense.id from ExpenseParticipant own join own.expense e " +
+            "where own.user.email = :email and e.createdAt >= :start and e.createdAt < :end) " +
+            "order by p.id")
+    List<ParticipantShareRow> findParticipantRowsOfUserExpensesBetween(@Param("email") String email,
+                                                                       @Param("start") LocalDateTime start,
+                                                                       @Param("end") LocalDateTime end);
+
+    @Query("select new org.example.dto.ParticipantShareRow(p.expense.id, u.name, u.email, p.shareAmount) " +
+            "from ExpenseParticipant p join p.user u where p.expense.id in :expenseIds order by p.id")
+    List<ParticipantShareRow> findParticipantRowsByExpenseIdIn(@Param("expenseIds") Collection<Long> expenseIds);
+
+    @Query("select new org.example.dto.UserAmount(p.user.id, sum(" + EQUAL_SHARE + ")) " +
+            "from ExpenseParticipant p join p.expense e group by p.user.id")
+    List<UserAmount> sumOwedByUser();
+
+    @Query("select new org.example.dto.UserPairAmount(p.user.id, e.paidBy.id, sum(" + EQUAL_SHARE + ")) " +
+            "from ExpenseParticipant p join p.expense e where p.user.id <> e.paidBy.id " +
+            "group by p.user.id, e.paidBy.id")
+    List<UserPairAmount> sumOwedByParticipantToPayer();
+
+    @Query("select new org.example.dto.MonthlyUserAmount(p.user.id, year(e.createdAt), month(e.createdAt), sum(" + EQUAL_SHARE + ")) " +
+            "from ExpenseParticipant p join p.expense e group by p.user.id, year(e.createdAt), month(e.createdAt)")
+    List<MonthlyUserAmount> sumOwedByUserAndMonth();
+
+    @Query("select new org.example.dto.MonthlyUserPairAmount(p.user.id, e.paidBy.id, year(e.createdAt), month(e.createdAt), " +
+            "sum(" + EQUAL_SHARE + ")) " +
+            "from ExpenseParticipant p join p.expense e where p.user.id <> e.paidBy.id " +
+            "group by p.user.id, e.paidBy.id, year(e.createdAt), month(e.createdAt)")
+    List<MonthlyUserPairAmount> sumOwedByParticipantToPayerAndMonth();
+
+    @Query("select new org.example.dto.UserAmount(p.user.id, sum(" + EQUAL_SHARE + ")) " +
+            "from ExpenseParticipant p join p.expense e " +
+            "where p.user.id in :userIds and e.createdAt >= :start and e.createdAt < :end group by p.user.id")
+    List<UserAmount> sumOwedByUserInBetween(@Param("userIds") Collection<Long> userIds,
+                                            @Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
+    /**
+     * What the user owes each payer over the expenses created in {@code [start, end)}.
+     */
+    @Query("select new org.example.dto.UserPairAmount(p.user.id, e.paidBy.id, sum(" + EQUAL_SHARE + ")) " +
+            "from ExpenseParticipant p join p.expense e " +
+            "where p.user.id = :userId and e.paidBy.id <> :userId and e.createdAt >= :start and e.createdAt < :end " +
+            "group by p.user.id, e.paidBy.id")
+    List<UserPairAmount> sumOwedByUserToPayersBetween(@Param("userId") Long userId,
+                                                      @Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end);
+
+    /**
+     * What each participant owes the user, as payer, over the expenses created in {@code [start, end)}.
+     */
+    @Query("select new org.example.dto.UserPairAmount(p.user.id, e.paidBy.id, sum(" + EQUAL_SHARE + ")) " +
+            "from ExpenseParticipant p join p.expense e " +
+            "where e.paidBy.id = :userId and p.user.id <> :userId and e.createdAt >= :start and e.createdAt < :end " +
+            "group by p.user.id, e.paidBy.id")
+    List<UserPairAmount> sumOwedToPayerBetween(@Param("userId") Long userId,
+                                               @Param("start") LocalDateTime start,
+                                               @Param("end") LocalDateTime end);
+
+    @Query("select new org.example.dto.GroupUserAmount(e.group.id, p.user.id, sum(" + EQUAL_SHARE + ")) " +
+            "from ExpenseParticipant p join p.expense e where e.group is not null " +
+            "group by e.group.id, p.user.id")
+    List<GroupUserAmount> sumOwedByGroupAndUser();
+}
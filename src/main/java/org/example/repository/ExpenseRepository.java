@@ -1,12 +1,40 @@
 package org.example.repository;
 
+import org.example.dto.GroupUserAmount;
+import org.example.dto.MonthlyUserAmount;
+import org.example.dto.UserAmount;
 import org.example.model.Expense;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
-    List<Expense> findAllByParticipantsUserEmail(String email);
+    List<Expense> findAllByGroupIdOrderByCreatedAt(Long groupId);
+
+    @Query("select new org.example.dto.UserAmount(e.paidBy.id, sum(e.amount)) from Expense e group by e.paidBy.id")
+    List<UserAmount> sumPaidByUser();
+
+    @Query("select new org.example.dto.MonthlyUserAmount(e.paidBy.id, year(e.createdAt), month(e.createdAt), sum(e.amount)) " +
+            "from Expense e group by e.paidBy.id, year(e.createdAt), month(e.createdAt)")
+    List<MonthlyUserAmount> sumPaidByUserAndMonth();
+
+    @Query("select new org.example.dto.UserAmount(e.paidBy.id, sum(e.amount)) from Expense e " +
+            "where e.paidBy.id in :userIds and e.createdAt >= :start and e.createdAt < :end group by e.paidBy.id")
+    List<UserAmount> sumPaidByUserInBetween(@Param("userIds") Collection<Long> userIds,
+                                            @Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
+    @Query("select new org.example.dto.GroupUserAmount(e.group.id, e.paidBy.id, sum(e.amount)) " +
+            "from Expense e where e.group is not null group by e.group.id, e.paidBy.id")
+    List<GroupUserAmount> sumPaidByGroupAndUser();
+
+    @Query("select distinct e from Expense e join fetch e.paidBy join fetch e.participants p join fetch p.user " +
+            "where e.id in :ids")
+    List<Expense> findAllWithParticipantsByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,27 @@
+package org.example.repository;
+
+import org.example.model.GroupBalance;
+import org.example.model.GroupBalanceId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface GroupBalanceRepository extends JpaRepository<GroupBalance, GroupBalanceId> {
+
+    @Query("select b from GroupBalance b join fetch b.user where b.groupId = :groupId order by b.userId")
+    List<GroupBalance> findAllWithUserByGroupId(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("update GroupBalance b set b.netBalance = b.netBalance + :delta where b.groupId = :groupId and b.userId = :userId")
+    int addToBalance(@Param("groupId") Long groupId, @Param("userId") Long userId, @Param("delta") BigDecimal delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from GroupBalance")
+    void deleteAllBalances();
+}
@@ -0,0 +1,37 @@
+package org.example.repository;
+
+import org.example.dto.UserAmount;
+import org.example.model.MonthlyBalance;
+import org.example.model.MonthlyBalanceId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MonthlyBalanceRepository extends JpaRepository<MonthlyBalance, MonthlyBalanceId> {
+
+    /**
+     * Sums the monthly balances of the given users over the months in {@code [fromMonth, toMonth)}.
+     */
+    @Query("select new org.example.dto.UserAmount(b.userId, sum(b.netBalance)) from MonthlyBalance b " +
+            "where b.userId in :userIds and b.monthStart >= :fromMonth and b.monthStart < :toMonth group by b.userId")
+    List<UserAmount> sumByUserIdIn(@Param("userIds") Collection<Long> userIds,
+                                   @Param("fromMonth") LocalDate fromMonth,
+                                   @Param("toMonth") LocalDate toMonth);
+
+    @Modifying
+    @Query("update MonthlyBalance b set b.netBalance = b.netBalance + :delta " +
+            "where b.userId = :userId and b.monthStart = :monthStart")
+    int addToBalance(@Param("userId") Long userId, @Param("monthStart") LocalDate monthStart, @Param("delta") BigDecimal delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from MonthlyBalance")
+    void deleteAllBalances();
+}
@@ -0,0 +1,38 @@
+package org.example.repository;
+
+import org.example.dto.UserPairAmount;
+import org.example.model.MonthlyEdge;
+import org.example.model.MonthlyEdgeId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MonthlyEdgeRepository extends JpaRepository<MonthlyEdge, MonthlyEdgeId> {
+
+    /**
+     * Sums what the debtor owes each counterparty over the months in {@code [fromMonth, toMonth)}.
+     */
+    @Query("select new org.example.dto.UserPairAmount(e.debtorId, e.creditorId, sum(e.amount)) from MonthlyEdge e " +
+            "where e.debtorId = :debtorId and e.monthStart >= :fromMonth and e.monthStart < :toMonth " +
+            "group by e.debtorId, e.creditorId")
+    List<UserPairAmount> sumByDebtorId(@Param("debtorId") Long debtorId,
+                                       @Param("fromMonth") LocalDate fromMonth,
+                                       @Param("toMonth") LocalDate toMonth);
+
+    @Modifying
+    @Query("update MonthlyEdge e set e.amount = e.amount + :delta " +
+            "where e.debtorId = :debtorId and e.creditorId = :creditorId and e.monthStart = :monthStart")
+    int addToEdge(@Param("debtorId") Long debtorId, @Param("creditorId") Long creditorId,
+                  @Param("monthStart") LocalDate monthStart, @Param("delta") BigDecimal delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from MonthlyEdge")
+    void deleteAllEdges();
+}
@@ -0,0 +1,28 @@
+package org.example.repository;
+
+import org.example.model.UserBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserBalanceRepository extends JpaRepository<UserBalance, Long> {
+
+    List<UserBalance> findAllByOrderByUserId();
+
+    List<UserBalance> findAllByUserIdInOrderByUserId(Collection<Long> userIds);
+
+    @Modifying
+    @Query("update UserBalance b set b.netBalance = b.netBalance + :delta where b.userId = :userId")
+    int addToBalance(@Param("userId") Long userId, @Param("delta") BigDecimal delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from UserBalance")
+    void deleteAllBalances();
+}
@@ -4,6 +4,7 @@ import org.example.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,5 +16,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findAllByEmailIn(Iterable<String> emails);
 
+    List<User> findAllByNameIn(Collection<String> names);
+
     boolean existsByEmail(String email);
 }
@@ -1,20 +1,43 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.dto.ExpenseTotals;
+import org.example.dto.GroupBalanceResponse;
+import org.example.dto.GroupMemberBalance;
+import org.example.dto.GroupUserAmount;
+import org.example.dto.LedgerDiscrepancy;
+import org.example.dto.LedgerRebuildReport;
 import org.example.dto.RawBalanceResponse;
 import org.example.dto.RawTransaction;
 import org.example.dto.SimplifiedBalanceResponse;
 import org.example.dto.SimplifiedTransaction;
-import org.example.model.Expense;
-import org.example.model.ExpenseParticipant;
+import org.example.dto.UserAmount;
+import org.example.dto.UserPairAmount;
+import org.example.dto.UserRef;
+import org.example.exception.ExpenseSyncException;
+import org.example.exception.UserNotFoundException;
+import org.example.model.BalanceEdge;
+import org.example.model.ExpenseGroup;
+import org.example.model.GroupBalance;
 import org.example.model.User;
+import org.example.model.UserBalance;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * BalanceService handles computation of raw and simplified balances for a user.
@@ -24,180 +47,642 @@ import java.util.Map;
 @Service
 public class BalanceService {
 
-    private static final String EMAIL_KEY = "email";
+    /**
+     * A ledger value that differs from its recomputed counterpart, keyed by user id until the report is built.
+     */
+    private record Discrepancy(Long userId, Long counterpartyId, Long groupId, BigDecimal stored, BigDecimal recomputed) {
+    }
 
     private final UserService userService;
     private final ExpenseService expenseService;
-
-    public BalanceService(UserService userService, ExpenseService expenseService) {
+    private final LedgerService ledgerService;
+    private final UserComponentIndex componentIndex;
+    private final SettlementPlanner settlementPlanner;
+    private final GroupService groupService;
+    private final SettlementPlanCache planCache;
+    private final ExpenseJournal expenseJournal;
+    private final UserVersions userVersions;
+
+    private final Timer rawBalanceTimer;
+    private final Timer simplifiedBalanceTimer;
+    private final Timer netBalancesFromTotalsTimer;
+    private final Timer minimizeTimer;
+
+    // Size of the last call of each kind, so growth of the ledger or history can be alerted on before latency suffers.
+    private final AtomicLong rawRowsScanned;
+    private final AtomicLong rawTransactionsEmitted;
+    private final AtomicLong simplifiedRowsScanned;
+    private final AtomicLong simplifiedTransactionsEmitted;
+    private final AtomicLong groupRowsScanned;
+    private final AtomicLong groupTransactionsEmitted;
+    private final AtomicLong settlementRowsScanned;
+    private final AtomicLong settlementTransactionsEmitted;
+    private final AtomicLong rebuildExpensesScanned;
+    private final AtomicLong replayExpensesScanned;
+
+    public BalanceService(UserService userService, ExpenseService expenseService, LedgerService ledgerService,
+                          UserComponentIndex componentIndex, SettlementPlanner settlementPlanner,
+                          GroupService groupService, SettlementPlanCache planCache, ExpenseJournal expenseJournal,
+                          UserVersions userVersions, MeterRegistry registry) {
         this.userService = userService;
         this.expenseService = expenseService;
+        this.ledgerService = ledgerService;
+        this.componentIndex = componentIndex;
+        this.settlementPlanner = settlementPlanner;
+        this.groupService = groupService;
+        this.planCache = planCache;
+        this.expenseJournal = expenseJournal;
+        this.userVersions = userVersions;
+
+        this.rawBalanceTimer = timer(registry, "expensesync.balance.raw", "Time to compute a user's raw balances");
+        this.simplifiedBalanceTimer = timer(registry, "expensesync.balance.simplified", "Time to compute a user's simplified balances");
+        this.netBalancesFromTotalsTimer = Timer.builder("expensesync.balance.net")
+                .description("Time to compute net balances")
+                .tag("source", "totals")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.minimizeTimer = timer(registry, "expensesync.balance.minimize", "Time to minimize the transactions settling a set of balances");
+
+        this.rawRowsScanned = rowsScanned(registry, "raw");
+        this.rawTransactionsEmitted = transactionsEmitted(registry, "raw");
+        this.simplifiedRowsScanned = rowsScanned(registry, "simplified");
+        this.simplifiedTransactionsEmitted = transactionsEmitted(registry, "simplified");
+        this.groupRowsScanned = rowsScanned(registry, "group");
+        this.groupTransactionsEmitted = transactionsEmitted(registry, "group");
+        this.settlementRowsScanned = rowsScanned(registry, "settlement");
+        this.settlementTransactionsEmitted = transactionsEmitted(registry, "settlement");
+        this.rebuildExpensesScanned = expensesScanned(registry, "rebuild");
+        this.replayExpensesScanned = expensesScanned(registry, "replay");
+    }
+
+    /**
+     * Returns the ETag of a user's raw balances, which only change with the expenses the user takes part in.
+     * Needs no query once the user is in the user directory.
+     */
+    public String getRawBalanceTag(String email) {
+        return userVersions.tag(userService.getUserByEmail(email).getId());
     }
 
+    /**
+     * Returns the ETag of a user's simplified balances, which change with the expenses of anyone in the user's
+     * connected component. Needs no query once the user is in the user directory.
+     */
+    public String getSimplifiedBalanceTag(String email) {
+        return userVersions.tag(componentIndex.componentOf(userService.getUserByEmail(email).getId()));
+    }
+
+    /**
+     * Computes the raw balances of a user from their pairwise edges in the ledger,
+     * without loading any of their expenses.
+     */
     public RawBalanceResponse getRawBalance(String email) {
+        return rawBalanceTimer.record(() -> rawBalance(email));
+    }
+
+    private RawBalanceResponse rawBalance(String email) {
         User user = userService.getUserByEmail(email);
 
-        Map<String, String> currentUserMap = createUserMap(user);
+        UserRef currentUserRef = userService.getUserRef(user);
+
+        List<BalanceEdge> edges = ledgerService.getEdges(user);
+
+        List<RawTransaction> transactions = buildRawTransactions(edges, currentUserRef);
+        BigDecimal netBalance = transactions.stream()
+                .map(txn -> txn.getFrom().equals(currentUserRef) ? txn.getAmount().negate() : txn.getAmount())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        RawBalanceResponse response = new RawBalanceResponse();
+        response.setUser(currentUserRef);
+        response.setNetBalance(netBalance);
+        response.setTransactions(transactions);
 
-        List<Expense> expenses = expenseService.getExpensesByUserEmail(email);
+        rawRowsScanned.set(edges.size());
+        rawTransactionsEmitted.set(transactions.size());
+        return response;
+    }
 
-        Map<String, BigDecimal> balances = computeParticipantBalances(user, expenses);
+    /**
+     * Computes the raw balances of a user over the expenses created within {@code window}, or over all of them
+     * when the window is null. Whole months are read from the monthly edge rollups and only the partial months
+     * at the edges of the window are summed from the expenses; counterparties are resolved in one lookup.
+     */
+    public RawBalanceResponse getRawBalance(String email, DateWindow window) {
+        if (window == null) {
+            return getRawBalance(email);
+        }
+        return rawBalanceTimer.record(() -> rawBalance(email, window));
+    }
+
+    private RawBalanceResponse rawBalance(String email, DateWindow window) {
+        User user = userService.getUserByEmail(email);
 
-        List<RawTransaction> transactions = buildRawTransactions(balances, currentUserMap);
+        Map<Long, BigDecimal> owed = new HashMap<>();
+        if (window.hasFullMonths()) {
+            owed.putAll(ledgerService.getMonthlyEdges(user.getId(), window.firstFullMonth(), window.endFullMonth()));
+        }
+        for (DateWindow.Range range : window.partialRanges()) {
+            expenseService.getEdgeTotals(user.getId(), range).forEach((id, amount) -> owed.merge(id, amount, BigDecimal::add));
+        }
+
+        Map<Long, User> counterparties = owed.isEmpty() ? Map.of() : userService.getUsersById(owed.keySet());
+        List<BalanceEdge> edges = new ArrayList<>();
+        owed.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(edge -> edges.add(new BalanceEdge(user, counterparties.get(edge.getKey()), edge.getValue())));
+
+        UserRef currentUserRef = userService.getUserRef(user);
+        List<RawTransaction> transactions = buildRawTransactions(edges, currentUserRef);
         BigDecimal netBalance = transactions.stream()
-                .map(txn -> txn.getFrom().equals(currentUserMap) ? txn.getAmount().negate() : txn.getAmount())
+                .map(txn -> txn.getFrom().equals(currentUserRef) ? txn.getAmount().negate() : txn.getAmount())
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         RawBalanceResponse response = new RawBalanceResponse();
-        response.setUser(currentUserMap);
+        response.setUser(currentUserRef);
         response.setNetBalance(netBalance);
         response.setTransactions(transactions);
 
+        rawRowsScanned.set(owed.size());
+        rawTransactionsEmitted.set(transactions.size());
         return response;
     }
 
     /**
      * Computes the simplified balances for a given user by reducing the number of transactions.
+     * Only the user's connected component of the debt graph is settled, from balances stored in the ledger,
+     * and the resulting plan is cached until the next ledger write.
      */
     public SimplifiedBalanceResponse getSimplifiedBalance(String email) {
-        List<Expense> expenses = expenseService.fetchAllExpenses();
-        Map<String, BigDecimal> balanceMap = calculateNetBalances(expenses);
+        return simplifiedBalanceTimer.record(() -> simplifiedBalance(email));
+    }
 
-        // Capture netBalance before we zero out during simplification
-        BigDecimal netBalance = balanceMap.getOrDefault(email, BigDecimal.ZERO);
+    private SimplifiedBalanceResponse simplifiedBalance(String email) {
+        User currentUser = userService.getUserByEmail(email);
 
-        List<SimplifiedTransaction> simplified = minimizeTransactions(balanceMap);
+        Long userId = currentUser.getId();
+        SettlementPlanCache.ComponentPlan plan = planCache.get(componentIndex.rootOf(userId), userId, () -> planComponent(userId));
 
+        SimplifiedBalanceResponse response = new SimplifiedBalanceResponse();
+        response.setUser(userService.getUserRef(currentUser));
+        response.setNetBalance(plan.balances().getOrDefault(userId, BigDecimal.ZERO));
+        response.setTransactions(plan.transactions().getOrDefault(userId, List.of()));
+
+        simplifiedTransactionsEmitted.set(response.getTransactions().size());
+        return response;
+    }
+
+    /**
+     * Computes the simplified balances of a user over the expenses created within {@code window}, or over all of
+     * them when the window is null. The user's current component is settled from its members' net balances in the
+     * window, read from the monthly rollups plus the partial edge months; windowed plans are not cached.
+     */
+    public SimplifiedBalanceResponse getSimplifiedBalance(String email, DateWindow window) {
+        if (window == null) {
+            return getSimplifiedBalance(email);
+        }
+        return simplifiedBalanceTimer.record(() -> simplifiedBalance(email, window));
+    }
+
+    private SimplifiedBalanceResponse simplifiedBalance(String email, DateWindow window) {
         User currentUser = userService.getUserByEmail(email);
+        Long userId = currentUser.getId();
+        List<Long> component = componentIndex.componentOf(userId);
 
-        Map<String, String> currentUserMap = createUserMap(currentUser);
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        if (window.hasFullMonths()) {
+            balances.putAll(ledgerService.getMonthlyBalances(component, window.firstFullMonth(), window.endFullMonth()));
+        }
+        for (DateWindow.Range range : window.partialRanges()) {
+            expenseService.getNetTotals(component, range).forEach((id, amount) -> balances.merge(id, amount, BigDecimal::add));
+        }
 
-        List<SimplifiedTransaction> userTransactions = filterTransactionsForUser(simplified, email);
+        SettlementEngine engine = new SettlementEngine();
+        balances.forEach(engine::add);
+        simplifiedRowsScanned.set(balances.size());
+
+        SettlementPlanner.ComponentSettlement settlement =
+                minimizeTimer.record(() -> new SettlementPlanner.ComponentSettlement(engine, engine.settle()));
+        List<SettlementEngine.Transfer> ownTransfers = settlement.transfers().stream()
+                .filter(transfer -> userId.equals(engine.userId(transfer.from())) || userId.equals(engine.userId(transfer.to())))
+                .toList();
+        List<SettlementPlanner.ComponentSettlement> own = List.of(new SettlementPlanner.ComponentSettlement(engine, ownTransfers));
 
         SimplifiedBalanceResponse response = new SimplifiedBalanceResponse();
-        response.setUser(currentUserMap);
-        response.setNetBalance(netBalance);
-        response.setTransactions(userTransactions);
+        response.setUser(userService.getUserRef(currentUser));
+        response.setNetBalance(balances.getOrDefault(userId, BigDecimal.ZERO));
+        response.setTransactions(toTransactions(own, resolveUsers(own)::get));
 
+        simplifiedTransactionsEmitted.set(response.getTransactions().size());
         return response;
     }
 
     /**
-     * Computes net balance per user from all expenses.
+     * Computes the net balances and simplified settlement plan of a group from its stored group balances.
+     * Only the group's members and expenses are involved, however large the global ledger is.
      */
-    private Map<String, BigDecimal> calculateNetBalances(List<Expense> expenses) {
-        Map<String, BigDecimal> map = new HashMap<>();
+    @Transactional(readOnly = true)
+    public GroupBalanceResponse getGroupSimplifiedBalance(Long groupId) {
+        ExpenseGroup group = groupService.getGroup(groupId);
+
+        List<GroupBalance> balances = ledgerService.getGroupBalances(groupId);
+        Map<Long, User> users = new HashMap<>();
+        SettlementEngine engine = new SettlementEngine();
+        List<GroupMemberBalance> memberBalances = new ArrayList<>();
+        for (GroupBalance balance : balances) {
+            users.put(balance.getUserId(), balance.getUser());
+            engine.add(balance.getUserId(), balance.getNetBalance());
+            memberBalances.add(new GroupMemberBalance(userService.getUserRef(balance.getUser()), balance.getNetBalance()));
+        }
+
+        SettlementPlanner.ComponentSettlement settlement =
+                minimizeTimer.record(() -> new SettlementPlanner.ComponentSettlement(engine, engine.settle()));
+        List<SimplifiedTransaction> transactions = toTransactions(List.of(settlement), users::get);
 
-        for (Expense expense : expenses) {
-            BigDecimal share = expense.getAmount().divide(BigDecimal.valueOf(expense.getParticipants().size()), 2, RoundingMode.HALF_UP);
+        groupRowsScanned.set(balances.size());
+        groupTransactionsEmitted.set(transactions.size());
+        return new GroupBalanceResponse(group.getId(), group.getName(), memberBalances, transactions);
+    }
 
-            for (ExpenseParticipant participant : expense.getParticipants()) {
-                String email = participant.getUser().getEmail();
-                map.merge(email, share.negate(), BigDecimal::add);
+    /**
+     * Computes the simplified balances of several users at once, in request order. Each connected component involved
+     * is settled at most once, however many of the requested users it holds, and users are resolved in one lookup.
+     */
+    public List<SimplifiedBalanceResponse> getSimplifiedBalances(List<String> emails) {
+        Map<String, User> users = userService.getUsersByEmail(new LinkedHashSet<>(emails));
+        List<String> unknown = emails.stream().filter(email -> !users.containsKey(email)).distinct().toList();
+        if (!unknown.isEmpty()) {
+            throw new UserNotFoundException("Users with emails " + unknown + " not found.");
+        }
+
+        Map<Long, SettlementPlanCache.ComponentPlan> plans = new HashMap<>();
+        List<SimplifiedBalanceResponse> responses = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            User user = users.get(email);
+            Long userId = user.getId();
+            Long root = componentIndex.rootOf(userId);
+            SettlementPlanCache.ComponentPlan plan = plans.get(root);
+            if (plan == null || !plan.members().contains(userId)) {
+                plan = planCache.get(root, userId, () -> planComponent(userId));
+                plans.put(root, plan);
             }
 
-            String payerEmail = expense.getPaidBy().getEmail();
-            map.merge(payerEmail, expense.getAmount(), BigDecimal::add);
+            SimplifiedBalanceResponse response = new SimplifiedBalanceResponse();
+            response.setUser(userService.getUserRef(user));
+            response.setNetBalance(plan.balances().getOrDefault(userId, BigDecimal.ZERO));
+            response.setTransactions(plan.transactions().getOrDefault(userId, List.of()));
+            responses.add(response);
         }
+        return responses;
+    }
 
-        return map;
+    /**
+     * Computes the simplified settlement plan of the whole user base.
+     *
+     * @see #streamSettlementPlan(Consumer)
+     */
+    public List<SimplifiedTransaction> getSettlementPlan() {
+        List<SimplifiedTransaction> transactions = new ArrayList<>();
+        streamSettlementPlan(transactions::add);
+        return transactions;
     }
 
     /**
-     * Minimizes the number of transactions between debtors and creditors.
+     * Computes the simplified settlement plan of the whole user base once and hands every transaction to
+     * {@code sink}, component by component, without collecting the plan.
+     * Each connected component of the debt graph is settled independently and in parallel, on user ids,
+     * from one read of the ledger; only the users of the emitted transfers are resolved, in one lookup.
      */
-    private List<SimplifiedTransaction> minimizeTransactions(Map<String, BigDecimal> balanceMap) {
-        List<SimplifiedTransaction> result = new ArrayList<>();
+    public void streamSettlementPlan(Consumer<SimplifiedTransaction> sink) {
+        Map<Long, UserBalance> balances = new LinkedHashMap<>();
+        for (UserBalance balance : ledgerService.getUserBalances()) {
+            balances.put(balance.getUserId(), balance);
+        }
 
-        List<Map.Entry<String, BigDecimal>> creditors = balanceMap.entrySet().stream()
-                .filter(entry -> entry.getValue().compareTo(BigDecimal.ZERO) > 0)
-                .sorted(Map.Entry.comparingByValue())
+        List<List<UserBalance>> components = componentIndex.partition(balances.keySet()).stream()
+                .map(ids -> ids.stream().map(balances::get).toList())
                 .toList();
 
-        List<Map.Entry<String, BigDecimal>> debtors = balanceMap.entrySet().stream()
-                .filter(entry -> entry.getValue().compareTo(BigDecimal.ZERO) < 0)
-                .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
-                .toList();
+        List<SettlementPlanner.ComponentSettlement> settlements = settlementPlanner.settleAll(components);
+        UserBatchResolver users = resolveUsers(settlements);
+
+        long emitted = 0;
+        for (SettlementPlanner.ComponentSettlement settlement : settlements) {
+            SettlementEngine engine = settlement.engine();
+            for (SettlementEngine.Transfer transfer : settlement.transfers()) {
+                SimplifiedTransaction txn = toTransaction(users.get(engine.userId(transfer.from())),
+                        users.get(engine.userId(transfer.to())), transfer);
+                if (txn != null) {
+                    sink.accept(txn);
+                    emitted++;
+                }
+            }
+        }
+
+        settlementRowsScanned.set(balances.size());
+        settlementTransactionsEmitted.set(emitted);
+    }
+
+    /**
+     * Recomputes net balances, pairwise edges and group balances from the full expense history
+     * and compares them with the ledger.
+     * The history is summed by the database, so only O(users) aggregate rows reach the service.
+     * When {@code repair} is set, the ledger is overwritten with the recomputed values and the monthly rollups are
+     * rebuilt from the expense history.
+     */
+    @Transactional
+    public LedgerRebuildReport rebuildLedger(boolean repair) {
+        ExpenseTotals totals = expenseService.getExpenseTotals();
 
-        int i = 0;
-        int j = 0;
-        while (i < debtors.size() && j < creditors.size()) {
-            Map.Entry<String, BigDecimal> debtor = debtors.get(i);
-            Map.Entry<String, BigDecimal> creditor = creditors.get(j);
+        Map<Long, BigDecimal> recomputed = calculateNetBalances(totals).toBalanceMap();
+        Map<Long, BigDecimal> stored = ledgerService.getNetBalances();
 
-            BigDecimal amount = debtor.getValue().abs().min(creditor.getValue());
+        Map<Long, Map<Long, BigDecimal>> recomputedEdges = calculateEdges(totals);
+        Map<Long, Map<Long, BigDecimal>> storedEdges = ledgerService.getAllEdges();
 
-            User fromUser = userService.getUserByEmail(debtor.getKey());
-            User toUser = userService.getUserByEmail(creditor.getKey());
+        Map<Long, Map<Long, BigDecimal>> recomputedGroups = calculateGroupBalances(totals);
+        Map<Long, Map<Long, BigDecimal>> storedGroups = ledgerService.getAllGroupBalances();
 
-            if (fromUser != null && toUser != null) {
-                result.add(new SimplifiedTransaction(createUserMap(fromUser), createUserMap(toUser), amount));
+        Set<Long> userIds = new HashSet<>(recomputed.keySet());
+        userIds.addAll(stored.keySet());
+
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        for (Long userId : userIds) {
+            BigDecimal expected = recomputed.getOrDefault(userId, BigDecimal.ZERO);
+            BigDecimal actual = stored.getOrDefault(userId, BigDecimal.ZERO);
+            if (expected.compareTo(actual) != 0) {
+                discrepancies.add(new Discrepancy(userId, null, null, actual, expected));
             }
 
-            balanceMap.put(debtor.getKey(), debtor.getValue().add(amount));
-            balanceMap.put(creditor.getKey(), creditor.getValue().subtract(amount));
+            Map<Long, BigDecimal> expectedEdges = recomputedEdges.getOrDefault(userId, Map.of());
+            Map<Long, BigDecimal> actualEdges = storedEdges.getOrDefault(userId, Map.of());
+            Set<Long> counterparties = new HashSet<>(expectedEdges.keySet());
+            counterparties.addAll(actualEdges.keySet());
 
-            if (balanceMap.get(debtor.getKey()).compareTo(BigDecimal.ZERO) == 0) i++;
-            if (balanceMap.get(creditor.getKey()).compareTo(BigDecimal.ZERO) == 0) j++;
+            for (Long counterparty : counterparties) {
+                BigDecimal expectedEdge = expectedEdges.getOrDefault(counterparty, BigDecimal.ZERO);
+                BigDecimal actualEdge = actualEdges.getOrDefault(counterparty, BigDecimal.ZERO);
+                if (expectedEdge.compareTo(actualEdge) != 0) {
+                    discrepancies.add(new Discrepancy(userId, counterparty, null, actualEdge, expectedEdge));
+                }
+            }
         }
 
-        return result;
+        Set<Long> groupIds = new HashSet<>(recomputedGroups.keySet());
+        groupIds.addAll(storedGroups.keySet());
+        for (Long groupId : groupIds) {
+            Map<Long, BigDecimal> expectedMembers = recomputedGroups.getOrDefault(groupId, Map.of());
+            Map<Long, BigDecimal> actualMembers = storedGroups.getOrDefault(groupId, Map.of());
+            Set<Long> members = new HashSet<>(expectedMembers.keySet());
+            members.addAll(actualMembers.keySet());
+
+            for (Long member : members) {
+                BigDecimal expected = expectedMembers.getOrDefault(member, BigDecimal.ZERO);
+                BigDecimal actual = actualMembers.getOrDefault(member, BigDecimal.ZERO);
+                if (expected.compareTo(actual) != 0) {
+                    discrepancies.add(new Discrepancy(member, null, groupId, actual, expected));
+                }
+            }
+        }
+
+        if (repair) {
+            ledgerService.replaceBalances(recomputed);
+            ledgerService.replaceEdges(recomputedEdges);
+            ledgerService.replaceGroupBalances(recomputedGroups);
+            ledgerService.replaceMonthlyRollups(expenseService.getMonthlyExpenseTotals());
+        }
+
+        rebuildExpensesScanned.set(totals.expenseCount());
+        return LedgerRebuildReport.builder()
+                .expensesScanned(totals.expenseCount())
+                .usersChecked(userIds.size())
+                .discrepancies(toLedgerDiscrepancies(discrepancies))
+                .repaired(repair)
+                .build();
     }
 
     /**
-     * Filters a user's relevant simplified transactions from all transactions.
+     * Recomputes every user's net balance from the latest journal snapshot plus the events appended after it,
+     * and compares them with the ledger. Only the journal tail is read, not the expense history.
+     * When {@code repair} is set, the ledger's net balances are overwritten with the replayed values;
+     * this is refused unless every expense has a journal event.
      */
-    private List<SimplifiedTransaction> filterTransactionsForUser(List<SimplifiedTransaction> all, String email) {
-        return all.stream()
-                .filter(txn -> txn.getFrom().get(EMAIL_KEY).equals(email) || txn.getTo().get(EMAIL_KEY).equals(email))
-                .toList();
+    @Transactional
+    public LedgerRebuildReport replayLedger(boolean repair) {
+        if (repair && expenseJournal.countEvents() != expenseService.countExpenses()) {
+            throw new ExpenseSyncException("The expense journal does not cover every expense; rebuild the ledger instead.");
+        }
+
+        ExpenseJournal.Replay replay = expenseJournal.replay();
+        Map<Long, BigDecimal> stored = ledgerService.getNetBalances();
+
+        Set<Long> userIds = new HashSet<>(replay.balances().keySet());
+        userIds.addAll(stored.keySet());
+
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        for (Long userId : userIds) {
+            BigDecimal expected = replay.balances().getOrDefault(userId, BigDecimal.ZERO);
+            BigDecimal actual = stored.getOrDefault(userId, BigDecimal.ZERO);
+            if (expected.compareTo(actual) != 0) {
+                discrepancies.add(new Discrepancy(userId, null, null, actual, expected));
+            }
+        }
+
+        if (repair) {
+            ledgerService.replaceBalances(replay.balances());
+        }
+
+        replayExpensesScanned.set(replay.eventsReplayed());
+        return LedgerRebuildReport.builder()
+                .expensesScanned(replay.eventsReplayed())
+                .usersChecked(userIds.size())
+                .discrepancies(toLedgerDiscrepancies(discrepancies))
+                .repaired(repair)
+                .build();
     }
 
     /**
-     * Utility method to convert User entity into name-email map.
+     * Computes net balance per user from database-side paid and owed totals, in cents.
      */
-    private Map<String, String> createUserMap(User user) {
-        return Map.of("name", user.getName(), EMAIL_KEY, user.getEmail());
+    SettlementEngine calculateNetBalances(ExpenseTotals totals) {
+        return netBalancesFromTotalsTimer.record(() -> {
+            SettlementEngine engine = new SettlementEngine();
+            for (UserAmount paid : totals.paid()) {
+                engine.add(paid.userId(), paid.amount());
+            }
+            for (UserAmount owed : totals.owed()) {
+                engine.add(owed.userId(), owed.amount().negate());
+            }
+            return engine;
+        });
     }
 
-    private Map<String, BigDecimal> computeParticipantBalances(User user, List<Expense> expenses) {
-        Map<String, BigDecimal> balances = new HashMap<>();
-
-        for (Expense e : expenses) {
-            BigDecimal total = e.getAmount();
-            int size = e.getParticipants().size();
-            BigDecimal share = total.divide(BigDecimal.valueOf(size), 2, RoundingMode.HALF_UP);
-            boolean isPayer = e.getPaidBy().getEmail().equals(user.getEmail());
+    /**
+     * Computes the net balance of every member of every group (group id -> user id -> balance)
+     * from database-side paid and owed totals.
+     */
+    private Map<Long, Map<Long, BigDecimal>> calculateGroupBalances(ExpenseTotals totals) {
+        Map<Long, Map<Long, BigDecimal>> balances = new HashMap<>();
+        for (GroupUserAmount paid : totals.groupPaid()) {
+            balances.computeIfAbsent(paid.groupId(), k -> new HashMap<>())
+                    .merge(paid.userId(), paid.amount(), BigDecimal::add);
+        }
+        for (GroupUserAmount owed : totals.groupOwed()) {
+            balances.computeIfAbsent(owed.groupId(), k -> new HashMap<>())
+                    .merge(owed.userId(), owed.amount().negate(), BigDecimal::add);
+        }
+        return balances;
+    }
 
-            for (ExpenseParticipant p : e.getParticipants()) {
-                String participantEmail = p.getUser().getEmail();
-                if (participantEmail.equals(user.getEmail())) continue;
+    /**
+     * Requests the users of every transfer of the settlements from one batch resolver,
+     * so they are all resolved together on the first lookup.
+     */
+    private UserBatchResolver resolveUsers(List<SettlementPlanner.ComponentSettlement> settlements) {
+        UserBatchResolver users = userService.newBatchResolver();
+        for (SettlementPlanner.ComponentSettlement settlement : settlements) {
+            for (SettlementEngine.Transfer transfer : settlement.transfers()) {
+                users.request(settlement.engine().userId(transfer.from()));
+                users.request(settlement.engine().userId(transfer.to()));
+            }
+        }
+        return users;
+    }
 
-                if (isPayer) {
-                    balances.merge(participantEmail, share, BigDecimal::add);
-                } else if (participantEmail.equals(e.getPaidBy().getEmail())) {
-                    balances.merge(participantEmail, share.negate(), BigDecimal::add);
+    private List<SimplifiedTransaction> toTransactions(List<SettlementPlanner.ComponentSettlement> settlements,
+                                                       Function<Long, User> users) {
+        List<SimplifiedTransaction> result = new ArrayList<>();
+        for (SettlementPlanner.ComponentSettlement settlement : settlements) {
+            SettlementEngine engine = settlement.engine();
+            for (SettlementEngine.Transfer transfer : settlement.transfers()) {
+                SimplifiedTransaction txn = toTransaction(users.apply(engine.userId(transfer.from())),
+                        users.apply(engine.userId(transfer.to())), transfer);
+                if (txn != null) {
+                    result.add(txn);
                 }
             }
         }
-        return balances;
+        return result;
     }
 
-    private List<RawTransaction> buildRawTransactions(Map<String, BigDecimal> balances, Map<String, String> currentUserMap) {
-        List<RawTransaction> transactions = new ArrayList<>();
+    private SimplifiedTransaction toTransaction(User fromUser, User toUser, SettlementEngine.Transfer transfer) {
+        if (fromUser == null || toUser == null) {
+            return null;
+        }
+        return new SimplifiedTransaction(userService.getUserRef(fromUser), userService.getUserRef(toUser),
+                SettlementEngine.toAmount(transfer.amount()));
+    }
+
+    /**
+     * Settles the component of a user and indexes the resulting transactions by the id of each user involved.
+     * Balances are read without their users; only the users of the emitted transfers are resolved.
+     */
+    private SettlementPlanCache.ComponentPlan planComponent(Long userId) {
+        SettlementEngine engine = new SettlementEngine();
+        List<Long> members = componentIndex.componentOf(userId);
+        List<UserBalance> balances = ledgerService.getUserBalances(members);
+        for (UserBalance balance : balances) {
+            engine.add(balance.getUserId(), balance.getNetBalance());
+        }
+        simplifiedRowsScanned.set(balances.size());
+
+        SettlementPlanner.ComponentSettlement settlement =
+                minimizeTimer.record(() -> new SettlementPlanner.ComponentSettlement(engine, engine.settle()));
+        UserBatchResolver users = resolveUsers(List.of(settlement));
+
+        Map<Long, List<SimplifiedTransaction>> transactions = new HashMap<>();
+        for (SettlementEngine.Transfer transfer : settlement.transfers()) {
+            Long from = engine.userId(transfer.from());
+            Long to = engine.userId(transfer.to());
+            SimplifiedTransaction txn = toTransaction(users.get(from), users.get(to), transfer);
+            if (txn != null) {
+                transactions.computeIfAbsent(from, k -> new ArrayList<>()).add(txn);
+                transactions.computeIfAbsent(to, k -> new ArrayList<>()).add(txn);
+            }
+        }
+        transactions.replaceAll((id, txns) -> List.copyOf(txns));
+
+        return new SettlementPlanCache.ComponentPlan(Set.copyOf(members), Map.copyOf(engine.toBalanceMap()),
+                Map.copyOf(transactions));
+    }
+
+    /**
+     * Builds the reported discrepancies, resolving the users involved with a single lookup.
+     */
+    private List<LedgerDiscrepancy> toLedgerDiscrepancies(List<Discrepancy> discrepancies) {
+        UserBatchResolver users = userService.newBatchResolver();
+        for (Discrepancy discrepancy : discrepancies) {
+            users.request(discrepancy.userId());
+            if (discrepancy.counterpartyId() != null) {
+                users.request(discrepancy.counterpartyId());
+            }
+        }
+
+        List<LedgerDiscrepancy> result = new ArrayList<>(discrepancies.size());
+        for (Discrepancy discrepancy : discrepancies) {
+            result.add(new LedgerDiscrepancy(email(users.get(discrepancy.userId())),
+                    discrepancy.counterpartyId() == null ? null : email(users.get(discrepancy.counterpartyId())),
+                    discrepancy.groupId(), discrepancy.stored(), discrepancy.recomputed()));
+        }
+        return result;
+    }
 
-        for (Map.Entry<String, BigDecimal> entry : balances.entrySet()) {
-            BigDecimal amt = entry.getValue();
-            if (amt.compareTo(BigDecimal.ZERO) == 0) continue;
+    private static String email(User user) {
+        return user == null ? null : user.getEmail();
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static AtomicLong rowsScanned(MeterRegistry registry, String call) {
+        return gauge(registry, "expensesync.balance.rows.scanned", "Ledger rows read by the last balance call", call);
+    }
+
+    private static AtomicLong transactionsEmitted(MeterRegistry registry, String call) {
+        return gauge(registry, "expensesync.balance.transactions.emitted", "Transactions returned by the last balance call", call);
+    }
+
+    private static AtomicLong expensesScanned(MeterRegistry registry, String call) {
+        return gauge(registry, "expensesync.balance.expenses.scanned", "Expenses or journal events folded in by the last balance call", call);
+    }
+
+    private static AtomicLong gauge(MeterRegistry registry, String name, String description, String call) {
+        AtomicLong value = new AtomicLong();
+        Gauge.builder(name, value, AtomicLong::get)
+                .description(description)
+                .tag("call", call)
+                .register(registry);
+        return value;
+    }
+
+    /**
+     * Computes net pairwise edges (debtor id -> creditor id -> amount owed) from the gross amounts
+     * each participant owes each payer. Both directions of a pair are recorded, with opposite signs.
+     */
+    private Map<Long, Map<Long, BigDecimal>> calculateEdges(ExpenseTotals totals) {
+        Map<Long, Map<Long, BigDecimal>> edges = new HashMap<>();
+        for (UserPairAmount owed : totals.owedToPayer()) {
+            edges.computeIfAbsent(owed.debtorId(), k -> new HashMap<>()).merge(owed.creditorId(), owed.amount(), BigDecimal::add);
+            edges.computeIfAbsent(owed.creditorId(), k -> new HashMap<>()).merge(owed.debtorId(), owed.amount().negate(), BigDecimal::add);
+        }
+        return edges;
+    }
+
+    private List<RawTransaction> buildRawTransactions(List<BalanceEdge> edges, UserRef currentUserRef) {
+        List<RawTransaction> transactions = new ArrayList<>();
 
-            User counterparty = userService.getUserByEmail(entry.getKey());
+        for (BalanceEdge edge : edges) {
+            BigDecimal owed = edge.getAmount();
+            if (owed.compareTo(BigDecimal.ZERO) == 0) continue;
 
-            Map<String, String> counterpartyMap = createUserMap(counterparty);
+            UserRef counterpartyRef = userService.getUserRef(edge.getCreditor());
 
-            if (amt.compareTo(BigDecimal.ZERO) > 0) {
-                transactions.add(new RawTransaction(counterpartyMap, currentUserMap, amt));
+            if (owed.compareTo(BigDecimal.ZERO) < 0) {
+                transactions.add(new RawTransaction(counterpartyRef, currentUserRef, owed.abs()));
             } else {
-                transactions.add(new RawTransaction(currentUserMap, counterpartyMap, amt.abs()));
+                transactions.add(new RawTransaction(currentUserRef, counterpartyRef, owed));
             }
         }
         return transactions;
@@ -0,0 +1,92 @@
+package org.example.service;
+
+import org.example.exception.ExpenseSyncException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A window of expense creation dates, {@code from} and {@code to} both inclusive and either one open.
+ * <p>
+ * Windowed balances are served from monthly rollups: the calendar months fully inside the window are read from
+ * the rollup tables, and only the partial months at its edges are aggregated from the expenses themselves.
+ */
+public record DateWindow(LocalDate from, LocalDate to) {
+
+    // Stand-ins for an open side of the window, far outside any expense date.
+    static final LocalDate FIRST_MONTH = LocalDate.of(1, 1, 1);
+    static final LocalDate LAST_MONTH = LocalDate.of(9999, 12, 1);
+
+    /**
+     * A range of expense creation times, {@code start} inclusive and {@code end} exclusive.
+     */
+    public record Range(LocalDateTime start, LocalDateTime end) {
+    }
+
+    public DateWindow {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ExpenseSyncException("'from' must not be after 'to'.");
+        }
+    }
+
+    /**
+     * Returns the window between the given dates, or null when both are absent and the whole history is wanted.
+     */
+    public static DateWindow of(LocalDate from, LocalDate to) {
+        return from == null && to == null ? null : new DateWindow(from, to);
+    }
+
+    /**
+     * Returns the first month fully inside the window.
+     */
+    LocalDate firstFullMonth() {
+        if (from == null) {
+            return FIRST_MONTH;
+        }
+        return from.getDayOfMonth() == 1 ? from : from.withDayOfMonth(1).plusMonths(1);
+    }
+
+    /**
+     * Returns the month following the last month fully inside the window.
+     */
+    LocalDate endFullMonth() {
+        if (to == null) {
+            return LAST_MONTH;
+        }
+        return to.plusDays(1).withDayOfMonth(1);
+    }
+
+    boolean hasFullMonths() {
+        return firstFullMonth().isBefore(endFullMonth());
+    }
+
+    /**
+     * Returns the parts of the window not covered by whole months, at most one at each edge.
+     */
+    List<Range> partialRanges() {
+        LocalDateTime start = from == null ? null : from.atStartOfDay();
+        LocalDateTime end = to == null ? null : to.plusDays(1).atStartOfDay();
+        if (!hasFullMonths()) {
+            return List.of(new Range(start, end));
+        }
+
+        List<Range> ranges = new ArrayList<>(2);
+        if (start != null && !firstFullMonth().atStartOfDay().equals(start)) {
+            ranges.add(new Range(start, firstFullMonth().atStartOfDay()));
+        }
+        if (end != null && !endFullMonth().atStartOfDay().equals(end)) {
+            ranges.add(new Range(endFullMonth().atStartOfDay(), end));
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns the whole window as one range of creation times, with open sides widened to any time.
+     */
+    Range range() {
+        return new Range(from == null ? FIRST_MONTH.atStartOfDay() : from.atStartOfDay(),
+                to == null ? LAST_MONTH.atStartOfDay() : to.plusDays(1).atStartOfDay());
+    }
+}
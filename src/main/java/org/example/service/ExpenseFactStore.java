@@ -0,0 +1,361 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.example.dto.ExpenseFactRow;
+import org.example.model.Expense;
+import org.example.model.ExpenseParticipant;
+import org.example.repository.ExpenseParticipantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Columnar snapshot of expense facts for analytics, kept in memory-mapped files off the JPA heap.
+ * <p>
+ * Each expense is one fact, stored across primitive columns: amount in cents, payer id, creation epoch-day and the
+ * end offset of its participants in a flattened participant id column. Analytics scan these columns directly, so they
+ * neither hydrate entities nor query the OLTP tables.
+ * <p>
+ * The store is loaded lazily from one streamed projection query and then appended to by the {@link LedgerProjector}
+ * as committed expenses are applied to the ledger, so it is as fresh as the ledger. Appends are single-writer, only
+ * write past the facts already published and publish an immutable {@link Facts} view once written, so scans never
+ * lock. A rebuild loads a new generation of column files without holding the store's lock, so appends never wait for
+ * it: expenses appended meanwhile are kept aside and written once the new generation is swapped in. Earlier views
+ * keep the files of their generation mapped until their scans finish. The files are scratch space: they are rebuilt
+ * from the database on startup, and after any failed append or dropped projection.
+ */
+@Component
+public class ExpenseFactStore {
+
+    private static final Facts EMPTY = new Facts(LongBuffer.allocate(0), LongBuffer.allocate(0), IntBuffer.allocate(0),
+            IntBuffer.allocate(0), LongBuffer.allocate(0), 0);
+
+    private final ExpenseParticipantRepository participantRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path directory;
+    private final boolean ownsDirectory;
+    private final int initialCapacity;
+    private final Timer rebuilds;
+
+    // Serializes rebuilds; taken by readers only, never while holding this.
+    private final Object rebuildLock = new Object();
+
+    // Guarded by this: the columns appended to, whether they must be rebuilt before the next read, how often they
+    // were invalidated, and the expenses appended while a rebuild is loading (null when none is).
+    private Generation generation;
+    private int generations;
+    private boolean stale = true;
+    private long invalidations;
+    private List<Expense> pending;
+
+    private volatile Facts facts = EMPTY;
+
+    /**
+     * A consistent view of the first {@code size} facts. Columns are read with absolute gets only.
+     */
+    public record Facts(LongBuffer amounts, LongBuffer payers, IntBuffer days, IntBuffer participantEnds,
+                        LongBuffer participants, int size) {
+
+        public int participantStart(int fact) {
+            return fact == 0 ? 0 : participantEnds.get(fact - 1);
+        }
+    }
+
+    public ExpenseFactStore(ExpenseParticipantRepository participantRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry registry,
+                            @Value("${expensesync.analytics.directory:}") String directory,
+                            @Value("${expensesync.analytics.initial-capacity:65536}") int initialCapacity) throws IOException {
+        this.participantRepository = participantRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ownsDirectory = directory.isBlank();
+        this.directory = ownsDirectory ? Files.createTempDirectory("expensesync-facts") : Files.createDirectories(Path.of(directory));
+        this.initialCapacity = initialCapacity;
+
+        this.rebuilds = Timer.builder("expensesync.analytics.rebuild")
+                .description("Time to reload the expense fact store from the database")
+                .register(registry);
+        Gauge.builder("expensesync.analytics.facts", this, store -> store.facts.size())
+                .description("Expenses in the analytics fact store")
+                .register(registry);
+    }
+
+    /**
+     * Returns the current facts, loading the store from the database first if it is stale.
+     */
+    public Facts facts() {
+        if (isStale()) {
+            synchronized (rebuildLock) {
+                if (isStale()) {
+                    rebuilds.record(this::rebuild);
+                }
+            }
+        }
+        return facts;
+    }
+
+    /**
+     * Appends committed expenses, skipping any already stored. Expenses need their payer and participants loaded.
+     * While a rebuild is loading they are kept until it swaps its generation in; a stale store skips them.
+     */
+    public synchronized void append(List<Expense> expenses) {
+        if (pending != null) {
+            pending.addAll(expenses);
+        } else if (!stale) {
+            write(expenses);
+        }
+    }
+
+    /**
+     * Marks the store for a rebuild before its next read, e.g. after an expense failed to be projected.
+     */
+    public synchronized void invalidate() {
+        stale = true;
+        invalidations++;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (generation != null) {
+            generation.close();
+        }
+        if (ownsDirectory) {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private synchronized boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Loads a new generation outside the store's lock, then swaps it in and writes the expenses appended meanwhile.
+     * Expenses committed before the load began are in it; later ones are appended while it loads or after the swap.
+     */
+    private void rebuild() {
+        Generation next;
+        long startedAt;
+        synchronized (this) {
+            try {
+                next = new Generation(directory, ++generations, initialCapacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            startedAt = invalidations;
+            pending = new ArrayList<>();
+        }
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> load(next));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            closeQuietly(next);
+            throw e;
+        }
+
+        Generation previous;
+        synchronized (this) {
+            previous = generation;
+            generation = next;
+            // An invalidation during the load may stand for an expense the load missed, so it still counts.
+            stale = invalidations != startedAt;
+            write(pending);
+            pending = null;
+        }
+        if (previous != null) {
+            closeQuietly(previous);
+        }
+    }
+
+    /**
+     * Writes expenses not yet stored to the current generation and publishes its view. Called holding this.
+     */
+    private void write(List<Expense> expenses) {
+        try {
+            long[] ids = new long[8];
+            for (Expense expense : expenses) {
+                if (generation.contains(expense.getId())) continue;
+
+                List<ExpenseParticipant> rows = expense.getParticipants();
+                if (ids.length < rows.size()) {
+                    ids = new long[rows.size()];
+                }
+                for (int i = 0; i < rows.size(); i++) {
+                    ids[i] = rows.get(i).getUser().getId();
+                }
+                generation.write(expense.getId(), expense.getAmount(), expense.getPaidBy().getId(), expense.getCreatedAt(),
+                        ids, rows.size());
+            }
+            facts = generation.view();
+        } catch (IOException e) {
+            stale = true;
+        }
+    }
+
+    private void load(Generation target) {
+        try (Stream<ExpenseFactRow> rows = participantRepository.streamExpenseFacts()) {
+            long[] ids = new long[8];
+            int count = 0;
+            ExpenseFactRow current = null;
+            for (ExpenseFactRow row : (Iterable<ExpenseFactRow>) rows::iterator) {
+                if (current != null && !current.expenseId().equals(row.expenseId())) {
+                    target.write(current.expenseId(), current.amount(), current.payerId(), current.createdAt(), ids, count);
+                    count = 0;
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = row.participantId();
+                current = row;
+            }
+            if (current != null) {
+                target.write(current.expenseId(), current.amount(), current.payerId(), current.createdAt(), ids, count);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes and deletes a generation's files. Views already handed out keep their mappings, which outlive the files.
+     */
+    private static void closeQuietly(Generation generation) {
+        try {
+            generation.close();
+        } catch (IOException e) {
+            // Scratch files; a leftover is removed with the directory or overwritten by the next process.
+        }
+    }
+
+    /**
+     * One set of column files, loaded by a rebuild and then only appended to.
+     */
+    private static final class Generation {
+        private final MappedColumn amounts;
+        private final MappedColumn payers;
+        private final MappedColumn days;
+        private final MappedColumn participantEnds;
+        private final MappedColumn participants;
+        private final BitSet storedExpenses = new BitSet();
+        private int size;
+        private int participantCount;
+
+        Generation(Path directory, int number, int initialCapacity) throws IOException {
+            this.amounts = new MappedColumn(directory.resolve("amount_cents-" + number + ".col"), Long.BYTES, initialCapacity);
+            this.payers = new MappedColumn(directory.resolve("payer_id-" + number + ".col"), Long.BYTES, initialCapacity);
+            this.days = new MappedColumn(directory.resolve("epoch_day-" + number + ".col"), Integer.BYTES, initialCapacity);
+            this.participantEnds = new MappedColumn(directory.resolve("participant_end-" + number + ".col"), Integer.BYTES, initialCapacity);
+            this.participants = new MappedColumn(directory.resolve("participant_id-" + number + ".col"), Long.BYTES, initialCapacity * 4L);
+        }
+
+        boolean contains(long expenseId) {
+            return storedExpenses.get(Math.toIntExact(expenseId));
+        }
+
+        void write(long expenseId, BigDecimal amount, long payerId, LocalDateTime createdAt,
+                   long[] participantIds, int count) throws IOException {
+            amounts.ensureCapacity(size + 1);
+            payers.ensureCapacity(size + 1);
+            days.ensureCapacity(size + 1);
+            participantEnds.ensureCapacity(size + 1);
+            participants.ensureCapacity((long) participantCount + count);
+
+            LongBuffer participantColumn = participants.longs();
+            for (int i = 0; i < count; i++) {
+                participantColumn.put(participantCount + i, participantIds[i]);
+            }
+            participantCount += count;
+
+            amounts.longs().put(size, SettlementEngine.toCents(amount));
+            payers.longs().put(size, payerId);
+            days.ints().put(size, Math.toIntExact(createdAt.toLocalDate().toEpochDay()));
+            participantEnds.ints().put(size, participantCount);
+            size++;
+            storedExpenses.set(Math.toIntExact(expenseId));
+        }
+
+        Facts view() {
+            return new Facts(amounts.longs(), payers.longs(), days.ints(), participantEnds.ints(), participants.longs(), size);
+        }
+
+        void close() throws IOException {
+            for (MappedColumn column : List.of(amounts, payers, days, participantEnds, participants)) {
+                column.close();
+            }
+        }
+    }
+
+    /**
+     * A fixed-width column in a file mapped read-write, remapped at twice the size when it fills up.
+     * Views handed out before a remap stay valid over the part of the file they cover.
+     */
+    private static final class MappedColumn {
+        private final Path file;
+        private final FileChannel channel;
+        private final int elementBytes;
+        private long capacity;
+        private MappedByteBuffer buffer;
+        private LongBuffer longs;
+        private IntBuffer ints;
+
+        MappedColumn(Path file, int elementBytes, long capacity) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.elementBytes = elementBytes;
+            map(Math.max(1, capacity));
+        }
+
+        void ensureCapacity(long elements) throws IOException {
+            if (elements > capacity) {
+                map(Math.max(elements, capacity * 2));
+            }
+        }
+
+        LongBuffer longs() {
+            return longs;
+        }
+
+        IntBuffer ints() {
+            return ints;
+        }
+
+        void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+
+        private void map(long elements) throws IOException {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, elements * elementBytes);
+            buffer.order(ByteOrder.nativeOrder());
+            longs = elementBytes == Long.BYTES ? buffer.asLongBuffer() : null;
+            ints = elementBytes == Integer.BYTES ? buffer.asIntBuffer() : null;
+            capacity = elements;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.BatchExpenseResponse;
+import org.example.dto.BatchExpenseResult;
+import org.example.dto.BatchItemStatus;
+import org.example.dto.CreateExpenseRequest;
+import org.example.dto.ExpenseImportReport;
+import org.example.dto.ImportFormat;
+import org.example.dto.ImportRowError;
+import org.example.dto.ParticipantDTO;
+import org.example.dto.SplitType;
+import org.example.exception.ExpenseSyncException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ExpenseImportService loads expense history from an NDJSON or CSV stream.
+ * <p>
+ * Rows are parsed one line at a time and handed to {@link ExpenseService#createExpenses} in fixed-size chunks,
+ * each committed in its own transaction. The next chunk is only read once the previous one has committed,
+ * so a fast client is held back by the request stream and heap use does not grow with the file size.
+ * Only the report's error list is retained across chunks, and it is capped.
+ */
+@Service
+public class ExpenseImportService {
+
+    static final List<String> CSV_COLUMNS = List.of("description", "amount", "paidByEmail", "splitType", "participants", "groupId",
+            "createdAt");
+
+    private final ExpenseService expenseService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public ExpenseImportService(ExpenseService expenseService, ObjectMapper objectMapper,
+                                @Value("${expensesync.import.chunk-size:500}") int chunkSize,
+                                @Value("${expensesync.import.max-errors:1000}") int maxErrors) {
+        this.expenseService = expenseService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports every row of the stream. Rows that fail to parse or validate are reported by line number and skipped.
+     */
+    public ExpenseImportReport importExpenses(InputStream input, ImportFormat format) {
+        ImportProgress progress = new ImportProgress(format);
+        List<CreateExpenseRequest> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = format == ImportFormat.CSV ? readCsvHeader(reader) : null;
+            long line = header == null ? 0 : 1;
+
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) continue;
+
+                progress.rowsRead++;
+                try {
+                    chunk.add(format == ImportFormat.CSV ? parseCsvRow(text, header) : parseJsonRow(text));
+                    chunkLines.add(line);
+                } catch (ExpenseSyncException e) {
+                    progress.fail(line, e.getMessage());
+                }
+
+                if (chunk.size() == chunkSize) {
+                    flushChunk(chunk, chunkLines, progress);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (!chunk.isEmpty()) {
+            flushChunk(chunk, chunkLines, progress);
+        }
+        return progress.toReport();
+    }
+
+    private void flushChunk(List<CreateExpenseRequest> chunk, List<Long> chunkLines, ImportProgress progress) {
+        progress.chunks++;
+        try {
+            BatchExpenseResponse response = expenseService.createExpenses(List.copyOf(chunk));
+            progress.created += response.getCreated();
+            if (response.getLedgerToken() != null) {
+                progress.ledgerToken = response.getLedgerToken();
+            }
+            for (BatchExpenseResult result : response.getResults()) {
+                if (result.getStatus() == BatchItemStatus.FAILED) {
+                    progress.fail(chunkLines.get(result.getIndex()), result.getError());
+                }
+            }
+        } catch (RuntimeException e) {
+            // The chunk's transaction rolled back; report its rows and carry on with the next chunk.
+            chunkLines.forEach(line -> progress.fail(line, "Chunk failed: " + e.getMessage()));
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private CreateExpenseRequest parseJsonRow(String text) {
+        try {
+            return objectMapper.readValue(text, CreateExpenseRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new ExpenseSyncException("Malformed JSON row: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String text = reader.readLine();
+        if (text == null) {
+            return Map.of();
+        }
+
+        Map<String, Integer> header = new HashMap<>();
+        List<String> columns = splitCsvLine(text);
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim(), i);
+        }
+        for (String required : CSV_COLUMNS.subList(0, 5)) {
+            if (!header.containsKey(required)) {
+                throw new ExpenseSyncException("CSV header must contain the columns " + CSV_COLUMNS.subList(0, 5) + ".");
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Parses one CSV row. Participants are separated by {@code ;}, each written as {@code email} or {@code email:share}.
+     * The optional {@code createdAt} is an ISO local date-time.
+     */
+    private CreateExpenseRequest parseCsvRow(String text, Map<String, Integer> header) {
+        List<String> fields = splitCsvLine(text);
+        try {
+            List<ParticipantDTO> participants = new ArrayList<>();
+            for (String entry : column(fields, header, "participants").split(";")) {
+                if (entry.isBlank()) continue;
+                int colon = entry.indexOf(':');
+                participants.add(colon < 0
+                        ? new ParticipantDTO(entry.trim(), null)
+                        : new ParticipantDTO(entry.substring(0, colon).trim(), new BigDecimal(entry.substring(colon + 1).trim())));
+            }
+
+            String groupId = header.containsKey("groupId") ? column(fields, header, "groupId") : "";
+            String createdAt = header.containsKey("createdAt") ? column(fields, header, "createdAt") : "";
+            return CreateExpenseRequest.builder()
+                    .description(column(fields, header, "description"))
+                    .amount(new BigDecimal(column(fields, header, "amount")))
+                    .paidByEmail(column(fields, header, "paidByEmail"))
+                    .splitType(SplitType.valueOf(column(fields, header, "splitType").toUpperCase()))
+                    .participants(participants)
+                    .groupId(groupId.isEmpty() ? null : Long.valueOf(groupId))
+                    .createdAt(createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt))
+                    .build();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ExpenseSyncException("Malformed CSV row: " + e.getMessage());
+        }
+    }
+
+    private String column(List<String> fields, Map<String, Integer> header, String name) {
+        int index = header.get(name);
+        return index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    /**
+     * Splits a CSV line on commas, honouring double-quoted fields and {@code ""} escapes.
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private final class ImportProgress {
+        private final ImportFormat format;
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long created;
+        private long failed;
+        private int chunks;
+        private String ledgerToken;
+
+        private ImportProgress(ImportFormat format) {
+            this.format = format;
+        }
+
+        private void fail(long line, String error) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportRowError(line, error));
+            }
+        }
+
+        private ExpenseImportReport toReport() {
+            return ExpenseImportReport.builder()
+                    .format(format)
+                    .rowsRead(rowsRead)
+                    .created(created)
+                    .failed(failed)
+                    .chunks(chunks)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .ledgerToken(ledgerToken)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.model.BalanceSnapshot;
+import org.example.model.Expense;
+import org.example.model.ExpenseRecorded;
+import org.example.repository.BalanceSnapshotRepository;
+import org.example.repository.ExpenseJournalRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Append-only journal of recorded expenses, with periodic checkpoints of the per-user net balances derived from it.
+ * <p>
+ * Every recorded expense appends an {@link ExpenseRecorded} event in the same transaction. A snapshot stores
+ * the balances after applying the journal up to a sequence number, so rebuilding balances only replays the
+ * events after the latest snapshot.
+ * <p>
+ * Sequence numbers are allocated before commit, so an event may become visible after events with higher numbers.
+ * Snapshots therefore stop at the last event recorded more than {@code expensesync.journal.snapshot-lag} ago;
+ * transactions are assumed to commit within that window.
+ */
+@Service
+public class ExpenseJournal {
+
+    private static final int REPLAY_CHUNK_SIZE = 1000;
+
+    /**
+     * Net balances, keyed by user id, derived from the latest snapshot plus the events replayed after it.
+     */
+    public record Replay(Map<Long, BigDecimal> balances, long snapshotSequence, long lastSequence, long eventsReplayed) {
+    }
+
+    private record Progress(long lastSequence, long events) {
+    }
+
+    private final ExpenseJournalRepository journalRepository;
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final EntityManager entityManager;
+    private final Duration snapshotLag;
+
+    public ExpenseJournal(ExpenseJournalRepository journalRepository, BalanceSnapshotRepository snapshotRepository,
+                          EntityManager entityManager,
+                          @Value("${expensesync.journal.snapshot-lag:1m}") Duration snapshotLag) {
+        this.journalRepository = journalRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.entityManager = entityManager;
+        this.snapshotLag = snapshotLag;
+    }
+
+    /**
+     * Appends one event per expense, in the caller's transaction. The expenses must already have ids.
+     */
+    public void append(List<Expense> expenses) {
+        LocalDateTime now = LocalDateTime.now();
+        journalRepository.saveAll(expenses.stream().map(expense -> new ExpenseRecorded(expense, now)).toList());
+    }
+
+    /**
+     * Checkpoints the balances up to the last event old enough to be safely included,
+     * replaying only the events since the previous snapshot, which is then dropped.
+     * Returns empty when no such event was appended since the previous snapshot.
+     */
+    @Transactional
+    public Optional<BalanceSnapshot> takeSnapshot() {
+        Optional<BalanceSnapshot> latest = snapshotRepository.findFirstByOrderBySequenceDesc();
+        long from = latest.map(BalanceSnapshot::getSequence).orElse(0L);
+        long upTo = journalRepository.findLastSequenceRecordedBefore(LocalDateTime.now().minus(snapshotLag)).orElse(0L);
+        if (upTo <= from) {
+            return Optional.empty();
+        }
+
+        SettlementEngine engine = startFrom(latest);
+        replay(engine, from, upTo);
+
+        BalanceSnapshot snapshot = snapshotRepository.save(new BalanceSnapshot(upTo, engine.toBalanceMap(), LocalDateTime.now()));
+        snapshotRepository.deleteAllBySequenceLessThan(upTo);
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Derives every user's net balance from the latest snapshot and the journal tail after it.
+     */
+    @Transactional(readOnly = true)
+    public Replay replay() {
+        Optional<BalanceSnapshot> latest = snapshotRepository.findFirstByOrderBySequenceDesc();
+        long from = latest.map(BalanceSnapshot::getSequence).orElse(0L);
+
+        SettlementEngine engine = startFrom(latest);
+        Progress progress = replay(engine, from, Long.MAX_VALUE);
+
+        return new Replay(engine.toBalanceMap(), from, progress.lastSequence(), progress.events());
+    }
+
+    public long countEvents() {
+        return journalRepository.count();
+    }
+
+    private static SettlementEngine startFrom(Optional<BalanceSnapshot> snapshot) {
+        SettlementEngine engine = new SettlementEngine();
+        snapshot.ifPresent(s -> s.getBalances().forEach(engine::add));
+        return engine;
+    }
+
+    /**
+     * Applies the events in (after, upTo] in sequence order, one chunk at a time.
+     */
+    private Progress replay(SettlementEngine engine, long after, long upTo) {
+        long last = after;
+        long count = 0;
+        List<ExpenseRecorded> chunk;
+        do {
+            chunk = journalRepository.findRange(last, upTo, Limit.of(REPLAY_CHUNK_SIZE));
+            for (ExpenseRecorded event : chunk) {
+                apply(engine, event);
+                last = event.getSequence();
+            }
+            count += chunk.size();
+            entityManager.clear();
+        } while (chunk.size() == REPLAY_CHUNK_SIZE);
+        return new Progress(last, count);
+    }
+
+    private static void apply(SettlementEngine engine, ExpenseRecorded event) {
+        List<Long> participants = event.getParticipantIds();
+        long amount = SettlementEngine.toCents(event.getAmount());
+        long share = SettlementEngine.equalShare(amount, participants.size());
+
+        for (Long userId : participants) {
+            engine.add(engine.intern(userId), -share);
+        }
+        engine.add(engine.intern(event.getPaidById()), amount);
+    }
+}
@@ -1,18 +1,33 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.apache.commons.lang3.StringUtils;
 import org.example.dto.*;
 import org.example.exception.ExpenseSyncException;
+import org.example.exception.GroupNotFoundException;
 import org.example.model.Expense;
+import org.example.model.ExpenseGroup;
 import org.example.model.ExpenseParticipant;
 import org.example.model.User;
+import org.example.repository.ExpenseParticipantRepository;
 import org.example.repository.ExpenseRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * ExpenseService handles creation and retrieval of shared group expenses,
@@ -21,76 +36,419 @@ import java.util.stream.Collectors;
 @Service
 public class ExpenseService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+
+    /**
+     * Position of the last expense of a page, encoded as an opaque cursor.
+     */
+    private record ExpenseCursor(LocalDateTime createdAt, Long id) {
+    }
+
     private final UserService userService;
     private final ExpenseRepository expenseRepository;
-
-    public ExpenseService(UserService userService, ExpenseRepository expenseRepository) {
+    private final ExpenseParticipantRepository participantRepository;
+    private final LedgerProjector ledgerProjector;
+    private final GroupService groupService;
+    private final ExpenseJournal expenseJournal;
+    private final UserVersions userVersions;
+    private final EntityManager entityManager;
+
+    private final Timer createTimer;
+    private final Timer summaryTimer;
+    // Expense rows read by the last summary, which grows with the user's history.
+    private final AtomicLong summaryExpensesScanned = new AtomicLong();
+
+    public ExpenseService(UserService userService, ExpenseRepository expenseRepository,
+                          ExpenseParticipantRepository participantRepository, LedgerProjector ledgerProjector,
+                          GroupService groupService, ExpenseJournal expenseJournal, UserVersions userVersions,
+                          EntityManager entityManager, MeterRegistry registry) {
         this.userService = userService;
         this.expenseRepository = expenseRepository;
+        this.participantRepository = participantRepository;
+        this.ledgerProjector = ledgerProjector;
+        this.groupService = groupService;
+        this.expenseJournal = expenseJournal;
+        this.userVersions = userVersions;
+        this.entityManager = entityManager;
+
+        this.createTimer = Timer.builder("expensesync.expense.create")
+                .description("Time to validate and persist a single expense, excluding the commit")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.summaryTimer = Timer.builder("expensesync.expense.summary")
+                .description("Time to build a user's expense summary")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("expensesync.balance.expenses.scanned", summaryExpensesScanned, AtomicLong::get)
+                .description("Expenses or journal events folded in by the last balance call")
+                .tag("call", "summary")
+                .register(registry);
     }
 
     /**
      * Creates a new expense and calculates share per participant.
      * Supports split types: EQUAL, EXACT.
+     * When a group is given, every participant must be a member of it.
+     * The expense is dated with the request's {@code createdAt} when it carries one, as for batches and imports.
+     * The expense is journaled in the same transaction; the balance ledger is updated once it commits,
+     * and the response carries the token to wait for that, see {@link LedgerProjector}.
      */
+    @Transactional
     public CreateExpenseResponse createExpense(CreateExpenseRequest request) {
+        return createTimer.record(() -> create(request));
+    }
+
+    private CreateExpenseResponse create(CreateExpenseRequest request) {
+        if (request.getParticipants() == null) {
+            throw new ExpenseSyncException("Participants are required.");
+        }
+        validateEmailsPresent(request);
         validatePaidByIncluded(request);
 
         Set<String> participantEmails = extractParticipantEmails(request);
         Set<User> participants = validateAndFetchParticipants(participantEmails);
         User payer = userService.getUserByEmail(request.getPaidByEmail());
 
-        Expense expense = buildExpense(request, payer);
-        Map<String, BigDecimal> emailToShareMap = calculateShares(request, participants);
-        List<ParticipantBreakdownDTO> breakdownList = attachParticipants(expense, participants, emailToShareMap, payer, request);
+        ExpenseGroup group = null;
+        if (request.getGroupId() != null) {
+            group = groupService.getGroup(request.getGroupId());
+            groupService.validateMembers(group, participants);
+        }
+
+        Expense expense = buildExpense(request, payer, group, createdAt(request));
+        Map<Long, BigDecimal> shares = calculateShares(request, participants);
+        List<ParticipantBreakdownDTO> breakdownList = attachParticipants(expense, participants, shares, payer, request);
 
         expenseRepository.save(expense);
+        expenseJournal.append(List.of(expense));
+        userVersions.bump(participantIds(List.of(expense)));
+        String ledgerToken = ledgerProjector.publish(List.of(expense.getId()));
+
+        CreateExpenseResponse response = buildCreateExpenseResponse(expense, payer, breakdownList);
+        response.setLedgerToken(ledgerToken);
+        return response;
+    }
+
+    /**
+     * Creates a batch of expenses in one transaction, validating each item independently.
+     * <p>
+     * All payer and participant emails of the batch are resolved up front with a single lookup,
+     * valid expenses and their journal events are inserted together so Hibernate can batch the statements,
+     * and the whole batch is projected onto the ledger as one event once it commits. Invalid items are reported
+     * and skipped; they do not prevent the rest of the batch from being created.
+     * <p>
+     * The persistence context is flushed and cleared once the expenses are inserted, so the commit
+     * does not dirty-check every entity of the batch again.
+     */
+    @Transactional
+    public BatchExpenseResponse createExpenses(List<CreateExpenseRequest> requests) {
+        // Items missing an email fail validation below; their emails must not reach the lookup, which rejects nulls.
+        Set<String> emails = new HashSet<>();
+        for (CreateExpenseRequest request : requests) {
+            if (StringUtils.isNotBlank(request.getPaidByEmail())) {
+                emails.add(request.getPaidByEmail());
+            }
+            if (request.getParticipants() != null) {
+                request.getParticipants().stream()
+                        .filter(p -> p != null && StringUtils.isNotBlank(p.getEmail()))
+                        .forEach(p -> emails.add(p.getEmail()));
+            }
+        }
+        Map<String, User> users = userService.getUsersByEmail(emails);
+        Map<Long, ExpenseGroup> groups = new HashMap<>();
+
+        BatchExpenseResult[] results = new BatchExpenseResult[requests.size()];
+        List<Expense> expenses = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        List<List<ParticipantBreakdownDTO>> breakdowns = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateExpenseRequest request = requests.get(i);
+            try {
+                if (request.getAmount() == null || request.getSplitType() == null || request.getParticipants() == null) {
+                    throw new ExpenseSyncException("Amount, split type and participants are required.");
+                }
+                validateEmailsPresent(request);
+                validatePaidByIncluded(request);
+
+                Set<User> participants = new HashSet<>();
+                for (String email : extractParticipantEmails(request)) {
+                    User user = users.get(email);
+                    if (user == null) {
+                        throw new ExpenseSyncException("All emails must be valid.");
+                    }
+                    participants.add(user);
+                }
+                User payer = users.get(request.getPaidByEmail());
+
+                ExpenseGroup group = null;
+                if (request.getGroupId() != null) {
+                    group = groups.computeIfAbsent(request.getGroupId(), groupService::getGroup);
+                    groupService.validateMembers(group, participants);
+                }
+
+                Expense expense = buildExpense(request, payer, group, createdAt(request));
+                Map<Long, BigDecimal> shares = calculateShares(request, participants);
+                breakdowns.add(attachParticipants(expense, participants, shares, payer, request));
+                expenses.add(expense);
+                indices.add(i);
+            } catch (ExpenseSyncException | GroupNotFoundException e) {
+                results[i] = new BatchExpenseResult(i, BatchItemStatus.FAILED, null, e.getMessage());
+            }
+        }
+
+        expenseRepository.saveAll(expenses);
+        expenseJournal.append(expenses);
+        userVersions.bump(participantIds(expenses));
+        entityManager.flush();
+        entityManager.clear();
+        String ledgerToken = expenses.isEmpty() ? null : ledgerProjector.publish(expenses.stream().map(Expense::getId).toList());
+
+        for (int j = 0; j < expenses.size(); j++) {
+            Expense expense = expenses.get(j);
+            int index = indices.get(j);
+            results[index] = new BatchExpenseResult(index, BatchItemStatus.CREATED,
+                    buildCreateExpenseResponse(expense, expense.getPaidBy(), breakdowns.get(j)), null);
+        }
 
-        return buildCreateExpenseResponse(expense, payer, breakdownList);
+        return BatchExpenseResponse.builder()
+                .created(expenses.size())
+                .failed(requests.size() - expenses.size())
+                .results(Arrays.asList(results))
+                .ledgerToken(ledgerToken)
+                .build();
+    }
+
+    /**
+     * Returns the ETag of a user's expense listings, which change whenever an expense the user takes part in is created.
+     * Needs no query once the user is in the user directory.
+     */
+    public String getExpensesTag(String email) {
+        return userVersions.tag(userService.getUserByEmail(email).getId());
     }
 
     /**
      * Retrieves a summary of expenses for a user, optionally showing participants.
+     * Reads constructor projections only: one query for the user's rows, plus one for the
+     * participant breakdown when {@code showParticipants} is set.
      */
+    @Transactional(readOnly = true)
     public UserExpenseSummary getExpensesByUserEmail(String email, boolean showParticipants) {
+        return getExpensesByUserEmail(email, showParticipants, null);
+    }
+
+    /**
+     * Retrieves a summary of the expenses of a user created within {@code window}, or of all of them when the
+     * window is null. The window is applied in the row queries, on the creation time of each expense, so
+     * only the expenses in the window are read; the net balance is that of the listed expenses.
+     */
+    @Transactional(readOnly = true)
+    public UserExpenseSummary getExpensesByUserEmail(String email, boolean showParticipants, DateWindow window) {
+        return summaryTimer.record(() -> summary(email, showParticipants, window));
+    }
+
+    private UserExpenseSummary summary(String email, boolean showParticipants, DateWindow window) {
         userService.getUserByEmail(email);
 
-        List<Expense> expenses = expenseRepository.findAllByParticipantsUserEmail(email);
+        List<UserExpenseRow> rows;
+        Map<Long, List<ParticipantShareRow>> participants = Map.of();
+        if (window == null) {
+            rows = participantRepository.findExpenseRowsByUserEmail(email);
+            if (showParticipants) {
+                participants = groupByExpense(participantRepository.findParticipantRowsOfUserExpenses(email));
+            }
+        } else {
+            DateWindow.Range range = window.range();
+            rows = participantRepository.findExpenseRowsByUserEmailBetween(email, range.start(), range.end());
+            if (showParticipants) {
+                participants = groupByExpense(participantRepository.findParticipantRowsOfUserExpensesBetween(
+                        email, range.start(), range.end()));
+            }
+        }
+
         BigDecimal netBalance = BigDecimal.ZERO;
         List<CreateExpenseResponse> summary = new ArrayList<>();
 
-        for (Expense expense : expenses) {
-            BigDecimal share = getUserShareFromExpense(expense, email);
-            BigDecimal paid = expense.getPaidBy().getEmail().equals(email) ? expense.getAmount() : BigDecimal.ZERO;
-            BigDecimal net = paid.subtract(share);
+        for (UserExpenseRow row : rows) {
+            BigDecimal paid = row.payerEmail().equals(email) ? row.amount() : BigDecimal.ZERO;
+            BigDecimal net = paid.subtract(row.userShare());
             netBalance = netBalance.add(net);
 
-            CreateExpenseResponse response = buildExpenseSummaryResponse(expense, net, showParticipants);
+            CreateExpenseResponse response = new CreateExpenseResponse();
+            response.setId(row.id());
+            response.setDescription(row.description());
+            response.setAmount(row.amount());
+            response.setCreatedAt(row.createdAt());
+            response.setPaidBy(Map.of("name", row.payerName(), "email", row.payerEmail()));
+            response.setNetTransactionBalance(net);
+            if (showParticipants) {
+                response.setParticipants(buildBreakdown(participants.getOrDefault(row.id(), List.of()), row.payerEmail(), row.amount()));
+            }
             summary.add(response);
         }
 
         UserExpenseSummary result = new UserExpenseSummary();
         result.setNetBalance(netBalance);
         result.setExpenses(summary);
+        summaryExpensesScanned.set(rows.size());
         return result;
     }
 
     /**
-     * Returns all expenses for a specific user.
+     * Retrieves one page of a user's expenses in (createdAt, id) order, optionally showing participants.
+     * Pages are addressed with keyset cursors: pass the previous page's {@code nextCursor} as {@code after}.
+     * Each row carries the user's net for that expense; the page has no running total.
+     * Participants of the whole page are loaded with one projection query.
      */
-    public List<Expense> getExpensesByUserEmail(String email) {
-        return expenseRepository.findAllByParticipantsUserEmail(email);
+    @Transactional(readOnly = true)
+    public ExpensePage getExpensePageByUserEmail(String email, int limit, String after, boolean showParticipants) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ExpenseSyncException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        userService.getUserByEmail(email);
+
+        List<ExpenseParticipant> rows;
+        if (after == null) {
+            rows = participantRepository.findFirstPageByUserEmail(email, Limit.of(limit + 1));
+        } else {
+            ExpenseCursor cursor = decodeCursor(after);
+            rows = participantRepository.findPageByUserEmailAfter(email, cursor.createdAt(), cursor.id(), Limit.of(limit + 1));
+        }
+
+        boolean hasNext = rows.size() > limit;
+        List<ExpenseParticipant> page = hasNext ? rows.subList(0, limit) : rows;
+        Map<Long, List<ParticipantShareRow>> participants = showParticipants
+                ? groupByExpense(participantRepository.findParticipantRowsByExpenseIdIn(
+                        page.stream().map(row -> row.getExpense().getId()).toList()))
+                : Map.of();
+
+        List<CreateExpenseResponse> expenses = new ArrayList<>(page.size());
+        for (ExpenseParticipant row : page) {
+            CreateExpenseResponse response = buildUserExpenseRow(row, email, false);
+            if (showParticipants) {
+                Expense expense = row.getExpense();
+                response.setParticipants(buildBreakdown(participants.getOrDefault(expense.getId(), List.of()),
+                        expense.getPaidBy().getEmail(), expense.getAmount()));
+            }
+            expenses.add(response);
+        }
+
+        String nextCursor = hasNext ? encodeCursor(page.get(page.size() - 1).getExpense()) : null;
+        return new ExpensePage(expenses, nextCursor);
+    }
+
+    /**
+     * Streams every expense of a user to {@code sink} in (createdAt, id) order, as rows come off a scrolled
+     * result set. The persistence context is cleared periodically, so memory use does not depend on the history size.
+     * The user must be validated before the response is committed; see {@link UserService#getUserByEmail}.
+     */
+    @Transactional(readOnly = true)
+    public void streamExpensesByUserEmail(String email, boolean showParticipants, Consumer<CreateExpenseResponse> sink) {
+        try (Stream<ExpenseParticipant> rows = participantRepository.streamByUserEmail(email)) {
+            int count = 0;
+            for (Iterator<ExpenseParticipant> it = rows.iterator(); it.hasNext(); ) {
+                sink.accept(buildUserExpenseRow(it.next(), email, showParticipants));
+                if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the expenses of a group in creation order, optionally showing participants.
+     */
+    @Transactional(readOnly = true)
+    public List<CreateExpenseResponse> getExpensesByGroup(Long groupId, boolean showParticipants) {
+        groupService.getGroup(groupId);
+
+        return expenseRepository.findAllByGroupIdOrderByCreatedAt(groupId).stream()
+                .map(expense -> buildExpenseSummaryResponse(expense, null, showParticipants))
+                .toList();
+    }
+
+    public long countExpenses() {
+        return expenseRepository.count();
+    }
+
+    /**
+     * Returns paid and owed totals per user, user pair and group member, summed by the database
+     * so that no expense or participant row is loaded. Rows are keyed by user id; no user is resolved.
+     */
+    @Transactional(readOnly = true)
+    public ExpenseTotals getExpenseTotals() {
+        return new ExpenseTotals(
+                expenseRepository.count(),
+                expenseRepository.sumPaidByUser(),
+                participantRepository.sumOwedByUser(),
+                participantRepository.sumOwedByParticipantToPayer(),
+                expenseRepository.sumPaidByGroupAndUser(),
+                participantRepository.sumOwedByGroupAndUser());
+    }
+
+    /**
+     * Returns paid and owed totals per user and user pair for each calendar month, summed by the database,
+     * from which the monthly ledger rollups are rebuilt.
+     */
+    @Transactional(readOnly = true)
+    public MonthlyExpenseTotals getMonthlyExpenseTotals() {
+        return new MonthlyExpenseTotals(
+                expenseRepository.sumPaidByUserAndMonth(),
+                participantRepository.sumOwedByUserAndMonth(),
+                participantRepository.sumOwedByParticipantToPayerAndMonth());
     }
 
     /**
-     * Returns all expenses in the system.
+     * Returns the net balances (paid - equal share owed) of the given users over the expenses created in
+     * {@code range}, keyed by user id, summed by the database. Users without expenses in the range are absent.
      */
-    public List<Expense> fetchAllExpenses() {
-        return expenseRepository.findAll();
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getNetTotals(Collection<Long> userIds, DateWindow.Range range) {
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        for (UserAmount paid : expenseRepository.sumPaidByUserInBetween(userIds, range.start(), range.end())) {
+            totals.merge(paid.userId(), paid.amount(), BigDecimal::add);
+        }
+        for (UserAmount owed : participantRepository.sumOwedByUserInBetween(userIds, range.start(), range.end())) {
+            totals.merge(owed.userId(), owed.amount().negate(), BigDecimal::add);
+        }
+        return totals;
+    }
+
+    /**
+     * Returns what a user owes each counterparty (by id) over the expenses created in {@code range},
+     * negative when the counterparty owes the user, summed by the database.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getEdgeTotals(Long userId, DateWindow.Range range) {
+        Map<Long, BigDecimal> edges = new HashMap<>();
+        for (UserPairAmount owed : participantRepository.sumOwedByUserToPayersBetween(userId, range.start(), range.end())) {
+            edges.merge(owed.creditorId(), owed.amount(), BigDecimal::add);
+        }
+        for (UserPairAmount owed : participantRepository.sumOwedToPayerBetween(userId, range.start(), range.end())) {
+            edges.merge(owed.debtorId(), owed.amount().negate(), BigDecimal::add);
+        }
+        return edges;
     }
 
     // ─── PRIVATE HELPERS ─────────────────────────────────────────
 
+    private Set<Long> participantIds(List<Expense> expenses) {
+        Set<Long> ids = new HashSet<>();
+        for (Expense expense : expenses) {
+            ids.add(expense.getPaidBy().getId());
+            expense.getParticipants().forEach(participant -> ids.add(participant.getUser().getId()));
+        }
+        return ids;
+    }
+
+    private void validateEmailsPresent(CreateExpenseRequest request) {
+        if (StringUtils.isBlank(request.getPaidByEmail())
+                || request.getParticipants().stream().anyMatch(p -> p == null || StringUtils.isBlank(p.getEmail()))) {
+            throw new ExpenseSyncException("Paid by email and every participant email are required.");
+        }
+    }
+
     private void validatePaidByIncluded(CreateExpenseRequest request) {
         if (request.getParticipants().stream().noneMatch(p -> p.getEmail().equals(request.getPaidByEmail()))) {
             throw new ExpenseSyncException("Paid by email must be a participant in the expense.");
@@ -111,12 +469,27 @@ public class ExpenseService {
         return users;
     }
 
-    private Expense buildExpense(CreateExpenseRequest request, User payer) {
+    /**
+     * Returns the creation time of a new expense: the one its request carries, so imported history keeps its dates, or now.
+     */
+    private LocalDateTime createdAt(CreateExpenseRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        if (request.getCreatedAt() == null) {
+            return now;
+        }
+        if (request.getCreatedAt().isAfter(now)) {
+            throw new ExpenseSyncException("Created at must not be in the future.");
+        }
+        return request.getCreatedAt();
+    }
+
+    private Expense buildExpense(CreateExpenseRequest request, User payer, ExpenseGroup group, LocalDateTime createdAt) {
         Expense expense = new Expense();
         expense.setDescription(request.getDescription());
         expense.setAmount(request.getAmount());
         expense.setPaidBy(payer);
-        expense.setCreatedAt(LocalDateTime.now());
+        expense.setGroup(group);
+        expense.setCreatedAt(createdAt);
         return expense;
     }
 
@@ -135,17 +508,17 @@ public class ExpenseService {
      *
      * @param request      The original create expense request containing participants, amount, and split type.
      * @param participants Set of valid user entities participating in the expense.
-     * @return A mapping of user email to their share of the expense.
+     * @return A mapping of user id to their share of the expense.
      * @throws ExpenseSyncException if the EXACT shares do not sum up to the total amount or if PERCENT is used.
      */
 
-    private Map<String, BigDecimal> calculateShares(CreateExpenseRequest request, Set<User> participants) {
-        Map<String, BigDecimal> map = new HashMap<>();
+    Map<Long, BigDecimal> calculateShares(CreateExpenseRequest request, Set<User> participants) {
+        Map<Long, BigDecimal> map = new HashMap<>();
 
         switch (request.getSplitType()) {
             case EQUAL -> {
                 BigDecimal equalShare = request.getAmount().divide(BigDecimal.valueOf(participants.size()), 2, RoundingMode.HALF_UP);
-                participants.forEach(u -> map.put(u.getEmail(), equalShare));
+                participants.forEach(u -> map.put(u.getId(), equalShare));
             }
             case EXACT -> {
                 BigDecimal total = request.getParticipants().stream()
@@ -156,8 +529,9 @@ public class ExpenseService {
                     throw new ExpenseSyncException("Sum of shares must equal total amount for EXACT split.");
                 }
 
+                Map<String, Long> ids = participants.stream().collect(Collectors.toMap(User::getEmail, User::getId));
                 request.getParticipants().forEach(p ->
-                        map.put(p.getEmail(), Optional.ofNullable(p.getShare()).orElse(BigDecimal.ZERO)));
+                        map.put(ids.get(p.getEmail()), Optional.ofNullable(p.getShare()).orElse(BigDecimal.ZERO)));
             }
             case PERCENT -> throw new ExpenseSyncException("PERCENT split is not yet supported.");
         }
@@ -167,14 +541,14 @@ public class ExpenseService {
     private List<ParticipantBreakdownDTO> attachParticipants(
             Expense expense,
             Set<User> users,
-            Map<String, BigDecimal> shareMap,
+            Map<Long, BigDecimal> shareMap,
             User payer,
             CreateExpenseRequest request
     ) {
         List<ParticipantBreakdownDTO> breakdown = new ArrayList<>();
 
         for (User u : users) {
-            BigDecimal share = shareMap.getOrDefault(u.getEmail(), BigDecimal.ZERO);
+            BigDecimal share = shareMap.getOrDefault(u.getId(), BigDecimal.ZERO);
 
             ExpenseParticipant ep = new ExpenseParticipant();
             ep.setUser(u);
@@ -182,11 +556,13 @@ public class ExpenseService {
             ep.setShareAmount(share);
             expense.getParticipants().add(ep);
 
-            BigDecimal owed = u.getEmail().equals(payer.getEmail()) ? BigDecimal.ZERO : share;
-            BigDecimal receive = u.getEmail().equals(payer.getEmail()) ? request.getAmount().subtract(share) : BigDecimal.ZERO;
+            boolean isPayer = u.getId().equals(payer.getId());
+            BigDecimal owed = isPayer ? BigDecimal.ZERO : share;
+            BigDecimal receive = isPayer ? request.getAmount().subtract(share) : BigDecimal.ZERO;
 
             breakdown.add(new ParticipantBreakdownDTO(u.getName(), u.getEmail(), owed, receive));
         }
+        expense.setParticipantCount(expense.getParticipants().size());
 
         return breakdown;
     }
@@ -203,12 +579,43 @@ public class ExpenseService {
         return res;
     }
 
-    private BigDecimal getUserShareFromExpense(Expense expense, String email) {
-        return expense.getParticipants().stream()
-                .filter(p -> p.getUser().getEmail().equals(email))
-                .findFirst()
-                .map(ExpenseParticipant::getShareAmount)
-                .orElse(BigDecimal.ZERO);
+    /**
+     * Builds a summary row from the user's own participant row, so the user's net needs no participant scan.
+     */
+    private CreateExpenseResponse buildUserExpenseRow(ExpenseParticipant own, String email, boolean showParticipants) {
+        Expense expense = own.getExpense();
+        BigDecimal paid = expense.getPaidBy().getEmail().equals(email) ? expense.getAmount() : BigDecimal.ZERO;
+        return buildExpenseSummaryResponse(expense, paid.subtract(own.getShareAmount()), showParticipants);
+    }
+
+    private String encodeCursor(Expense expense) {
+        String key = expense.getCreatedAt() + "_" + expense.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ExpenseCursor decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf('_');
+            return new ExpenseCursor(LocalDateTime.parse(key.substring(0, separator)), Long.valueOf(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ExpenseSyncException("Invalid cursor.");
+        }
+    }
+
+    private Map<Long, List<ParticipantShareRow>> groupByExpense(List<ParticipantShareRow> rows) {
+        return rows.stream().collect(Collectors.groupingBy(ParticipantShareRow::expenseId));
+    }
+
+    private List<ParticipantBreakdownDTO> buildBreakdown(List<ParticipantShareRow> participants, String payerEmail, BigDecimal amount) {
+        return participants.stream()
+                .map(p -> {
+                    boolean isPayer = p.email().equals(payerEmail);
+                    BigDecimal owed = isPayer ? BigDecimal.ZERO : p.shareAmount();
+                    BigDecimal receive = isPayer ? amount.subtract(p.shareAmount()) : BigDecimal.ZERO;
+                    return new ParticipantBreakdownDTO(p.name(), p.email(), owed, receive);
+                })
+                .toList();
     }
 
     private CreateExpenseResponse buildExpenseSummaryResponse(Expense expense, BigDecimal net, boolean showParticipants) {
@@ -0,0 +1,11 @@
+package org.example.service;
+
+import java.util.List;
+
+/**
+ * Published when expenses are created, to project them onto the balance ledger once their transaction commits.
+ *
+ * @param sequence position of the event in the order events were published by this process
+ */
+public record ExpensesCreatedEvent(long sequence, List<Long> expenseIds) {
+}
@@ -0,0 +1,83 @@
+package org.example.service;
+
+import org.example.dto.CreateGroupRequest;
+import org.example.dto.GroupResponse;
+import org.example.dto.UserResponse;
+import org.example.exception.ExpenseSyncException;
+import org.example.exception.GroupNotFoundException;
+import org.example.model.ExpenseGroup;
+import org.example.model.User;
+import org.example.repository.ExpenseGroupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * GroupService handles creation and lookup of expense groups and their membership.
+ */
+@Service
+public class GroupService {
+
+    private final UserService userService;
+    private final ExpenseGroupRepository groupRepository;
+
+    public GroupService(UserService userService, ExpenseGroupRepository groupRepository) {
+        this.userService = userService;
+        this.groupRepository = groupRepository;
+    }
+
+    @Transactional
+    public GroupResponse createGroup(CreateGroupRequest request) {
+        if (request.getMemberEmails() == null || request.getMemberEmails().isEmpty()) {
+            throw new ExpenseSyncException("A group must have at least one member.");
+        }
+
+        Set<String> emails = new HashSet<>(request.getMemberEmails());
+        Set<User> members = userService.getAllUsersByEmail(emails);
+        if (members.size() != emails.size()) {
+            throw new ExpenseSyncException("All member emails must be valid.");
+        }
+
+        ExpenseGroup group = new ExpenseGroup();
+        group.setName(request.getName());
+        group.setMembers(new HashSet<>(members));
+        return toResponse(groupRepository.save(group));
+    }
+
+    @Transactional(readOnly = true)
+    public GroupResponse getGroupResponse(Long groupId) {
+        return toResponse(getGroup(groupId));
+    }
+
+    public ExpenseGroup getGroup(Long groupId) {
+        return groupRepository.findById(groupId)
+                .orElseThrow(() -> new GroupNotFoundException("Group with id '" + groupId + "' not found."));
+    }
+
+    /**
+     * Ensures every given user belongs to the group.
+     */
+    public void validateMembers(ExpenseGroup group, Collection<User> users) {
+        Set<Long> memberIds = group.getMembers().stream().map(User::getId).collect(Collectors.toSet());
+        if (users.stream().anyMatch(user -> !memberIds.contains(user.getId()))) {
+            throw new ExpenseSyncException("All participants must be members of the group.");
+        }
+    }
+
+    private GroupResponse toResponse(ExpenseGroup group) {
+        return GroupResponse.builder()
+                .id(group.getId())
+                .name(group.getName())
+                .members(group.getMembers().stream()
+                        .sorted(Comparator.comparing(User::getEmail))
+                        .map(user -> UserResponse.builder().uuid(user.getUuid()).name(user.getName()).email(user.getEmail()).build())
+                        .toList())
+                .createdAt(group.getCreatedAt())
+                .build();
+    }
+}
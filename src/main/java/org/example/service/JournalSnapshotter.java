@@ -0,0 +1,24 @@
+package org.example.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically checkpoints the balances derived from the expense journal,
+ * bounding how many events a replay has to apply.
+ */
+@Component
+public class JournalSnapshotter {
+
+    private final ExpenseJournal expenseJournal;
+
+    public JournalSnapshotter(ExpenseJournal expenseJournal) {
+        this.expenseJournal = expenseJournal;
+    }
+
+    @Scheduled(initialDelayString = "${expensesync.journal.snapshot-interval:PT5M}",
+            fixedDelayString = "${expensesync.journal.snapshot-interval:PT5M}")
+    public void snapshot() {
+        expenseJournal.takeSnapshot();
+    }
+}
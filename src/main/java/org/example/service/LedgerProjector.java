@@ -0,0 +1,357 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.example.exception.ExpenseSyncException;
+import org.example.exception.LedgerNotCaughtUpException;
+import org.example.model.Expense;
+import org.example.repository.ExpenseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Applies created expenses to the balance ledger after their transaction commits, off the request thread.
+ * <p>
+ * Creating expenses publishes an {@link ExpensesCreatedEvent}; once the transaction commits, the event is queued
+ * and a single worker applies queued events in order, coalescing up to {@code max-batch} of them into one ledger
+ * transaction. One worker keeps every user's deltas in commit order and means projections never contend with each
+ * other for balance rows. A full queue blocks the committing thread until the worker catches up.
+ * <p>
+ * Each event carries a consistency token. A token is visible once its event and every earlier one has been applied,
+ * or discarded because its transaction rolled back, so a client that passes the token of its write to a balance read
+ * sees that write. Tokens from before a restart are always visible: queued events are drained on shutdown.
+ * <p>
+ * An event that still fails once retried on its own is counted in {@code expensesync.ledger.projection.failures}
+ * and kept aside, and the worker retries it every {@code retry-interval} until it applies. Its token stays
+ * not-caught-up meanwhile; later events are not held back, as ledger deltas add up in any order. A repairing
+ * ledger rebuild applies the expenses of the failed events, so it runs through {@link #repairing} and then drops them.
+ * Failed events still held at shutdown are lost; a rebuild repairs them.
+ * <p>
+ * Once a batch is committed, its expenses are also appended to the {@link ExpenseFactStore}, before its tokens
+ * become visible, so analytics read with a token see the write too.
+ */
+@Component
+public class LedgerProjector {
+
+    private final ExpenseRepository expenseRepository;
+    private final LedgerService ledgerService;
+    private final ExpenseFactStore factStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<ExpensesCreatedEvent> queue;
+    private final int maxBatch;
+    private final Duration readWait;
+    private final Duration retryInterval;
+    private final Counter failures;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong published = new AtomicLong();
+
+    // Every sequence up to projected has been applied, discarded or set aside in failed; completed holds the ones
+    // finished out of order.
+    private final Object progress = new Object();
+    private final NavigableSet<Long> completed = new TreeSet<>();
+    private final NavigableMap<Long, ExpensesCreatedEvent> failed = new TreeMap<>();
+    private long projected;
+
+    // Held while failed events are retried, so a repairing rebuild never runs alongside a retry.
+    private final Object retries = new Object();
+    private long nextRetry;
+
+    private Thread worker;
+
+    public LedgerProjector(ExpenseRepository expenseRepository, LedgerService ledgerService, ExpenseFactStore factStore,
+                           ApplicationEventPublisher eventPublisher, EntityManager entityManager,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry registry,
+                           @Value("${expensesync.ledger.projection.queue-capacity:10000}") int queueCapacity,
+                           @Value("${expensesync.ledger.projection.max-batch:500}") int maxBatch,
+                           @Value("${expensesync.ledger.projection.read-wait:5s}") Duration readWait,
+                           @Value("${expensesync.ledger.projection.retry-interval:5s}") Duration retryInterval) {
+        this.expenseRepository = expenseRepository;
+        this.ledgerService = ledgerService;
+        this.factStore = factStore;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.readWait = readWait;
+        this.retryInterval = retryInterval;
+        this.failures = Counter.builder("expensesync.ledger.projection.failures")
+                .description("Ledger projections that failed to apply and were set aside for retry")
+                .register(registry);
+        Gauge.builder("expensesync.ledger.projection.pending", queue, BlockingQueue::size)
+                .description("Committed expenses waiting to be applied to the ledger")
+                .register(registry);
+        Gauge.builder("expensesync.ledger.projection.failed", this, LedgerProjector::failedCount)
+                .description("Failed ledger projections waiting to be retried")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::run, "ledger-projector");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the worker once everything already queued has been applied.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        worker.interrupt();
+        worker.join(readWait.toMillis());
+    }
+
+    /**
+     * Publishes the given expenses for projection once the caller's transaction commits,
+     * and returns the token that becomes visible when they have been applied.
+     */
+    public String publish(List<Long> expenseIds) {
+        long sequence = published.incrementAndGet();
+        eventPublisher.publishEvent(new ExpensesCreatedEvent(sequence, List.copyOf(expenseIds)));
+        return epoch + "-" + sequence;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommit(ExpensesCreatedEvent event) {
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            project(List.of(event));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onRollback(ExpensesCreatedEvent event) {
+        complete(List.of(event));
+    }
+
+    /**
+     * Waits up to {@code expensesync.ledger.projection.read-wait} until the write identified by {@code token}
+     * is visible in the ledger. A null token returns immediately.
+     *
+     * @throws LedgerNotCaughtUpException if the write is still not visible after waiting
+     */
+    public void awaitVisible(String token) {
+        if (token == null) return;
+
+        int separator = token.lastIndexOf('-');
+        long sequence;
+        try {
+            sequence = Long.parseLong(token.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new ExpenseSyncException("Invalid ledger token.");
+        }
+        if (separator < 1 || sequence < 1) {
+            throw new ExpenseSyncException("Invalid ledger token.");
+        }
+        if (!token.substring(0, separator).equals(epoch)) return;
+        if (sequence > published.get()) {
+            throw new ExpenseSyncException("Invalid ledger token.");
+        }
+
+        if (!awaitProjected(sequence, readWait)) {
+            throw new LedgerNotCaughtUpException("The ledger has not caught up with the write yet; retry shortly.");
+        }
+    }
+
+    /**
+     * Waits until every event published so far has been applied, discarded or set aside as failed, or the read wait
+     * elapses. Returns whether the ledger caught up.
+     */
+    public boolean awaitIdle() {
+        return awaitProjected(published.get(), readWait, false);
+    }
+
+    /**
+     * Runs a ledger rebuild that repairs the ledger from the expense history, with retries paused, then drops the
+     * events that had failed before it started, as the rebuild has applied their expenses.
+     */
+    public <T> T repairing(Supplier<T> rebuild) {
+        synchronized (retries) {
+            List<ExpensesCreatedEvent> repaired;
+            synchronized (progress) {
+                repaired = List.copyOf(failed.values());
+            }
+            T result = rebuild.get();
+            synchronized (progress) {
+                repaired.forEach(event -> failed.remove(event.sequence()));
+                progress.notifyAll();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns whether any failed event is waiting to be retried.
+     */
+    public boolean hasFailedProjections() {
+        return failedCount() > 0;
+    }
+
+    boolean awaitProjected(long sequence, Duration timeout) {
+        return awaitProjected(sequence, timeout, true);
+    }
+
+    /**
+     * Waits until the given sequence and every earlier one has been projected and, if {@code applied}, the given
+     * sequence has not failed.
+     */
+    private boolean awaitProjected(long sequence, Duration timeout, boolean applied) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (progress) {
+            while (projected < sequence || applied && failed.containsKey(sequence)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(progress, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void run() {
+        List<ExpensesCreatedEvent> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                ExpensesCreatedEvent next = failedCount() == 0
+                        ? queue.take()
+                        : queue.poll(Math.max(0, nextRetry - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (next != null) {
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - 1);
+                    project(batch);
+                    batch.clear();
+                }
+                if (failedCount() > 0 && System.nanoTime() - nextRetry >= 0) {
+                    retryFailed();
+                }
+            } catch (InterruptedException e) {
+                // Shutting down: apply whatever is still queued, and give failed events a last try.
+                while (queue.drainTo(batch, maxBatch) > 0) {
+                    project(batch);
+                    batch.clear();
+                }
+                retryFailed();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies a batch in one transaction. If that fails, each event is retried on its own,
+     * so a single bad event does not hold back the rest of the batch; an event failing on its own is set aside.
+     */
+    private void project(List<ExpensesCreatedEvent> batch) {
+        if (apply(batch)) {
+            complete(batch);
+        } else if (batch.size() > 1) {
+            batch.forEach(event -> project(List.of(event)));
+        } else {
+            failures.increment();
+            synchronized (progress) {
+                if (failed.isEmpty()) {
+                    nextRetry = System.nanoTime() + retryInterval.toNanos();
+                }
+                failed.put(batch.get(0).sequence(), batch.get(0));
+            }
+            complete(batch);
+        }
+    }
+
+    /**
+     * Retries each failed event on its own, in sequence order, keeping the ones that fail again.
+     */
+    private void retryFailed() {
+        synchronized (retries) {
+            List<ExpensesCreatedEvent> events;
+            synchronized (progress) {
+                events = List.copyOf(failed.values());
+            }
+            for (ExpensesCreatedEvent event : events) {
+                if (apply(List.of(event))) {
+                    synchronized (progress) {
+                        failed.remove(event.sequence());
+                        progress.notifyAll();
+                    }
+                }
+            }
+            nextRetry = System.nanoTime() + retryInterval.toNanos();
+        }
+    }
+
+    /**
+     * Applies events to the ledger in one transaction, then appends their expenses to the fact store.
+     * Returns whether the ledger transaction committed.
+     * <p>
+     * The expenses are detached once loaded, so the ledger's update statements do not dirty-check them before they run.
+     */
+    private boolean apply(List<ExpensesCreatedEvent> events) {
+        List<Expense> expenses;
+        try {
+            expenses = transactionTemplate.execute(status -> {
+                List<Expense> loaded = expenseRepository.findAllWithParticipantsByIdIn(
+                        events.stream().flatMap(event -> event.expenseIds().stream()).toList());
+                entityManager.clear();
+                ledgerService.recordExpenses(loaded);
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            return false;
+        }
+
+        try {
+            factStore.append(expenses);
+        } catch (RuntimeException e) {
+            factStore.invalidate();
+        }
+        return true;
+    }
+
+    private int failedCount() {
+        synchronized (progress) {
+            return failed.size();
+        }
+    }
+
+    private void complete(List<ExpensesCreatedEvent> events) {
+        synchronized (progress) {
+            events.forEach(event -> completed.add(event.sequence()));
+            while (!completed.isEmpty() && completed.first() == projected + 1) {
+                projected = completed.pollFirst();
+            }
+            progress.notifyAll();
+        }
+    }
+}
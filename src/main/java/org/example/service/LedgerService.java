@@ -0,0 +1,342 @@
+package org.example.service;
+
+import org.example.dto.MonthlyExpenseTotals;
+import org.example.dto.MonthlyUserAmount;
+import org.example.dto.MonthlyUserPairAmount;
+import org.example.dto.UserAmount;
+import org.example.dto.UserPairAmount;
+import org.example.model.BalanceEdge;
+import org.example.model.Expense;
+import org.example.model.ExpenseParticipant;
+import org.example.model.GroupBalance;
+import org.example.model.MonthlyBalance;
+import org.example.model.MonthlyEdge;
+import org.example.model.User;
+import org.example.model.UserBalance;
+import org.example.repository.BalanceEdgeRepository;
+import org.example.repository.GroupBalanceRepository;
+import org.example.repository.MonthlyBalanceRepository;
+import org.example.repository.MonthlyEdgeRepository;
+import org.example.repository.UserBalanceRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LedgerService maintains the persisted balance ledger:
+ * - per-user net balances (user_balance)
+ * - pairwise debts between users who shared an expense (balance_edges)
+ * - per-group net balances of the members of each group (group_balances)
+ * - monthly rollups of the net balances and pairwise debts, by month of expense creation
+ *   (monthly_user_balances, monthly_balance_edges), for balances over a window of dates
+ * Every recorded expense is applied as a delta, so reading balances never requires scanning expense history.
+ * Balances are keyed by user id; users are only resolved by callers that build responses.
+ */
+@Service
+public class LedgerService {
+
+    private final UserBalanceRepository userBalanceRepository;
+    private final BalanceEdgeRepository balanceEdgeRepository;
+    private final GroupBalanceRepository groupBalanceRepository;
+    private final MonthlyBalanceRepository monthlyBalanceRepository;
+    private final MonthlyEdgeRepository monthlyEdgeRepository;
+    private final UserComponentIndex componentIndex;
+    private final SettlementPlanCache planCache;
+    private final UserVersions userVersions;
+
+    public LedgerService(UserBalanceRepository userBalanceRepository,
+                         BalanceEdgeRepository balanceEdgeRepository, GroupBalanceRepository groupBalanceRepository,
+                         MonthlyBalanceRepository monthlyBalanceRepository, MonthlyEdgeRepository monthlyEdgeRepository,
+                         UserComponentIndex componentIndex, SettlementPlanCache planCache, UserVersions userVersions) {
+        this.userBalanceRepository = userBalanceRepository;
+        this.balanceEdgeRepository = balanceEdgeRepository;
+        this.groupBalanceRepository = groupBalanceRepository;
+        this.monthlyBalanceRepository = monthlyBalanceRepository;
+        this.monthlyEdgeRepository = monthlyEdgeRepository;
+        this.componentIndex = componentIndex;
+        this.planCache = planCache;
+        this.userVersions = userVersions;
+    }
+
+    /**
+     * Applies an expense to the ledger. The expense must already be committed, see {@link LedgerProjector}.
+     */
+    @Transactional
+    public void recordExpense(Expense expense) {
+        recordExpenses(List.of(expense));
+    }
+
+    /**
+     * Applies a batch of expenses to the ledger. Deltas are summed across the batch first, keyed by user id,
+     * so each balance row, edge and monthly rollup row is written once however many expenses touch it.
+     * The expenses must already be committed, see {@link LedgerProjector}.
+     */
+    @Transactional
+    public void recordExpenses(List<Expense> expenses) {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        Map<Long, Map<Long, BigDecimal>> edgeDeltas = new HashMap<>();
+        Map<Long, Map<Long, BigDecimal>> groupDeltas = new HashMap<>();
+        Map<LocalDate, Map<Long, BigDecimal>> monthlyDeltas = new HashMap<>();
+        Map<LocalDate, Map<Long, Map<Long, BigDecimal>>> monthlyEdgeDeltas = new HashMap<>();
+        List<Set<Long>> connected = new ArrayList<>(expenses.size());
+
+        for (Expense expense : expenses) {
+            LocalDate month = expense.getCreatedAt().toLocalDate().withDayOfMonth(1);
+            Map<Long, BigDecimal> expenseDeltas = new HashMap<>();
+            BigDecimal share = expense.getAmount().divide(BigDecimal.valueOf(expense.getParticipants().size()), 2, RoundingMode.HALF_UP);
+
+            for (ExpenseParticipant participant : expense.getParticipants()) {
+                expenseDeltas.merge(participant.getUser().getId(), share.negate(), BigDecimal::add);
+            }
+
+            Long payer = expense.getPaidBy().getId();
+            expenseDeltas.merge(payer, expense.getAmount(), BigDecimal::add);
+
+            expenseDeltas.forEach((userId, delta) -> deltas.merge(userId, delta, BigDecimal::add));
+            Map<Long, BigDecimal> monthDeltas = monthlyDeltas.computeIfAbsent(month, k -> new HashMap<>());
+            expenseDeltas.forEach((userId, delta) -> monthDeltas.merge(userId, delta, BigDecimal::add));
+            if (expense.getGroup() != null) {
+                Map<Long, BigDecimal> members = groupDeltas.computeIfAbsent(expense.getGroup().getId(), k -> new HashMap<>());
+                expenseDeltas.forEach((userId, delta) -> members.merge(userId, delta, BigDecimal::add));
+            }
+
+            Map<Long, Map<Long, BigDecimal>> monthEdgeDeltas = monthlyEdgeDeltas.computeIfAbsent(month, k -> new HashMap<>());
+            for (Long participant : expenseDeltas.keySet()) {
+                if (participant.equals(payer)) continue;
+                edgeDeltas.computeIfAbsent(participant, k -> new HashMap<>()).merge(payer, share, BigDecimal::add);
+                edgeDeltas.computeIfAbsent(payer, k -> new HashMap<>()).merge(participant, share.negate(), BigDecimal::add);
+                monthEdgeDeltas.computeIfAbsent(participant, k -> new HashMap<>()).merge(payer, share, BigDecimal::add);
+                monthEdgeDeltas.computeIfAbsent(payer, k -> new HashMap<>()).merge(participant, share.negate(), BigDecimal::add);
+            }
+
+            connected.add(expenseDeltas.keySet());
+        }
+
+        deltas.forEach(this::applyDelta);
+        edgeDeltas.forEach((debtor, creditors) -> creditors.forEach((creditor, delta) ->
+                applyEdgeDelta(debtor, creditor, delta)));
+        groupDeltas.forEach((groupId, members) -> members.forEach((userId, delta) ->
+                applyGroupDelta(groupId, userId, delta)));
+        monthlyDeltas.forEach((month, users) -> users.forEach((userId, delta) ->
+                applyMonthlyDelta(userId, month, delta)));
+        monthlyEdgeDeltas.forEach((month, debtors) -> debtors.forEach((debtor, creditors) -> creditors.forEach((creditor, delta) ->
+                applyMonthlyEdgeDelta(debtor, creditor, month, delta))));
+
+        // Components merge in the same after-commit step as the version bump, so no plan is looked up by a merged
+        // component before its version moves, and a rolled-back batch merges nothing.
+        planCache.invalidate(() -> connected.forEach(componentIndex::connect));
+        userVersions.bump(deltas.keySet());
+    }
+
+    /**
+     * Returns the stored net balance of every user in the ledger, keyed by user id.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getNetBalances() {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (UserBalance balance : userBalanceRepository.findAll()) {
+            balances.put(balance.getUserId(), balance.getNetBalance());
+        }
+        return balances;
+    }
+
+    /**
+     * Returns the stored balance rows of every user, ordered by user id. Users are not fetched.
+     */
+    @Transactional(readOnly = true)
+    public List<UserBalance> getUserBalances() {
+        return userBalanceRepository.findAllByOrderByUserId();
+    }
+
+    /**
+     * Returns the stored balance rows of the given users, ordered by user id. Users are not fetched.
+     * Users without a row have a zero balance.
+     */
+    @Transactional(readOnly = true)
+    public List<UserBalance> getUserBalances(Collection<Long> userIds) {
+        return userBalanceRepository.findAllByUserIdInOrderByUserId(userIds);
+    }
+
+    /**
+     * Returns the stored balance rows of the members of a group, with users fetched, ordered by user id.
+     */
+    @Transactional(readOnly = true)
+    public List<GroupBalance> getGroupBalances(Long groupId) {
+        return groupBalanceRepository.findAllWithUserByGroupId(groupId);
+    }
+
+    /**
+     * Returns every stored group balance as group id -> user id -> net balance.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<Long, BigDecimal>> getAllGroupBalances() {
+        Map<Long, Map<Long, BigDecimal>> balances = new HashMap<>();
+        for (GroupBalance balance : groupBalanceRepository.findAll()) {
+            balances.computeIfAbsent(balance.getGroupId(), k -> new HashMap<>())
+                    .put(balance.getUserId(), balance.getNetBalance());
+        }
+        return balances;
+    }
+
+    /**
+     * Returns the pairwise edges of a user, i.e. the net amount they owe each counterparty.
+     * Creditors are fetched with the edges, so callers can read counterparty details without further queries.
+     */
+    @Transactional(readOnly = true)
+    public List<BalanceEdge> getEdges(User user) {
+        return balanceEdgeRepository.findAllByDebtorId(user.getId());
+    }
+
+    /**
+     * Returns what a user owes each counterparty (by id) over the expenses created in the months
+     * {@code [fromMonth, toMonth)}, from the monthly rollups.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getMonthlyEdges(Long userId, LocalDate fromMonth, LocalDate toMonth) {
+        Map<Long, BigDecimal> edges = new HashMap<>();
+        for (UserPairAmount edge : monthlyEdgeRepository.sumByDebtorId(userId, fromMonth, toMonth)) {
+            edges.put(edge.creditorId(), edge.amount());
+        }
+        return edges;
+    }
+
+    /**
+     * Returns the net balances of the given users over the expenses created in the months
+     * {@code [fromMonth, toMonth)}, keyed by user id, from the monthly rollups. Users without rows are absent.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getMonthlyBalances(Collection<Long> userIds, LocalDate fromMonth, LocalDate toMonth) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (UserAmount balance : monthlyBalanceRepository.sumByUserIdIn(userIds, fromMonth, toMonth)) {
+            balances.put(balance.userId(), balance.amount());
+        }
+        return balances;
+    }
+
+    /**
+     * Returns every stored edge as debtor id -> creditor id -> amount owed.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<Long, BigDecimal>> getAllEdges() {
+        Map<Long, Map<Long, BigDecimal>> edges = new HashMap<>();
+        for (BalanceEdge edge : balanceEdgeRepository.findAll()) {
+            edges.computeIfAbsent(edge.getDebtorId(), k -> new HashMap<>())
+                    .put(edge.getCreditorId(), edge.getAmount());
+        }
+        return edges;
+    }
+
+    /**
+     * Replaces the whole ledger with the given balances, keyed by user id.
+     */
+    @Transactional
+    public void replaceBalances(Map<Long, BigDecimal> balances) {
+        userBalanceRepository.deleteAllBalances();
+
+        List<UserBalance> rows = new ArrayList<>();
+        balances.forEach((userId, amount) -> rows.add(new UserBalance(userId, amount)));
+        userBalanceRepository.saveAll(rows);
+        planCache.invalidate();
+        userVersions.bumpAll();
+    }
+
+    /**
+     * Replaces every stored edge with the given ones, keyed by debtor id and then creditor id.
+     */
+    @Transactional
+    public void replaceEdges(Map<Long, Map<Long, BigDecimal>> edges) {
+        balanceEdgeRepository.deleteAllEdges();
+
+        List<BalanceEdge> rows = new ArrayList<>();
+        edges.forEach((debtor, creditors) -> creditors.forEach((creditor, amount) ->
+                rows.add(new BalanceEdge(debtor, creditor, amount))));
+        balanceEdgeRepository.saveAll(rows);
+        componentIndex.reset();
+        userVersions.bumpAll();
+    }
+
+    /**
+     * Replaces every stored group balance with the given ones, keyed by group id and then user id.
+     */
+    @Transactional
+    public void replaceGroupBalances(Map<Long, Map<Long, BigDecimal>> balances) {
+        groupBalanceRepository.deleteAllBalances();
+
+        List<GroupBalance> rows = new ArrayList<>();
+        balances.forEach((groupId, members) -> members.forEach((userId, amount) ->
+                rows.add(new GroupBalance(groupId, userId, amount))));
+        groupBalanceRepository.saveAll(rows);
+    }
+
+    /**
+     * Replaces both monthly rollups with the given per-month totals of the expense history.
+     */
+    @Transactional
+    public void replaceMonthlyRollups(MonthlyExpenseTotals totals) {
+        monthlyBalanceRepository.deleteAllBalances();
+        monthlyEdgeRepository.deleteAllEdges();
+
+        Map<LocalDate, Map<Long, BigDecimal>> balances = new HashMap<>();
+        for (MonthlyUserAmount paid : totals.paid()) {
+            balances.computeIfAbsent(paid.month(), k -> new HashMap<>()).merge(paid.userId(), paid.amount(), BigDecimal::add);
+        }
+        for (MonthlyUserAmount owed : totals.owed()) {
+            balances.computeIfAbsent(owed.month(), k -> new HashMap<>()).merge(owed.userId(), owed.amount().negate(), BigDecimal::add);
+        }
+        List<MonthlyBalance> balanceRows = new ArrayList<>();
+        balances.forEach((month, users) -> users.forEach((userId, amount) ->
+                balanceRows.add(new MonthlyBalance(userId, month, amount))));
+        monthlyBalanceRepository.saveAll(balanceRows);
+
+        Map<LocalDate, Map<Long, Map<Long, BigDecimal>>> edges = new HashMap<>();
+        for (MonthlyUserPairAmount owed : totals.owedToPayer()) {
+            Map<Long, Map<Long, BigDecimal>> month = edges.computeIfAbsent(owed.month(), k -> new HashMap<>());
+            month.computeIfAbsent(owed.debtorId(), k -> new HashMap<>()).merge(owed.creditorId(), owed.amount(), BigDecimal::add);
+            month.computeIfAbsent(owed.creditorId(), k -> new HashMap<>()).merge(owed.debtorId(), owed.amount().negate(), BigDecimal::add);
+        }
+        List<MonthlyEdge> edgeRows = new ArrayList<>();
+        edges.forEach((month, debtors) -> debtors.forEach((debtor, creditors) -> creditors.forEach((creditor, amount) ->
+                edgeRows.add(new MonthlyEdge(debtor, creditor, month, amount)))));
+        monthlyEdgeRepository.saveAll(edgeRows);
+        userVersions.bumpAll();
+    }
+
+    private void applyMonthlyDelta(Long userId, LocalDate month, BigDecimal delta) {
+        if (monthlyBalanceRepository.addToBalance(userId, month, delta) == 0) {
+            monthlyBalanceRepository.save(new MonthlyBalance(userId, month, delta));
+        }
+    }
+
+    private void applyMonthlyEdgeDelta(Long debtorId, Long creditorId, LocalDate month, BigDecimal delta) {
+        if (monthlyEdgeRepository.addToEdge(debtorId, creditorId, month, delta) == 0) {
+            monthlyEdgeRepository.save(new MonthlyEdge(debtorId, creditorId, month, delta));
+        }
+    }
+
+    private void applyGroupDelta(Long groupId, Long userId, BigDecimal delta) {
+        if (groupBalanceRepository.addToBalance(groupId, userId, delta) == 0) {
+            groupBalanceRepository.save(new GroupBalance(groupId, userId, delta));
+        }
+    }
+
+    private void applyEdgeDelta(Long debtorId, Long creditorId, BigDecimal delta) {
+        if (balanceEdgeRepository.addToEdge(debtorId, creditorId, delta) == 0) {
+            balanceEdgeRepository.save(new BalanceEdge(debtorId, creditorId, delta));
+        }
+    }
+
+    private void applyDelta(Long userId, BigDecimal delta) {
+        if (userBalanceRepository.addToBalance(userId, delta) == 0) {
+            userBalanceRepository.save(new UserBalance(userId, delta));
+        }
+    }
+}
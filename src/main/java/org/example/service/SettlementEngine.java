@@ -0,0 +1,227 @@
+package org.example.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SettlementEngine accumulates net balances and computes the settlement plan on primitives.
+ * - Users are identified by their {@code long} id and interned to dense int indices in the order they are first seen,
+ *   through an open-addressing table, so interning neither boxes ids nor hashes strings
+ * - Balances are kept in a long[] of minor units (cents)
+ * - Debtors and creditors are ordered with a stable primitive index sort
+ * BigDecimal amounts only appear at the boundary, through {@link #toCents} and {@link #toAmount}.
+ * Instances are not thread-safe.
+ */
+public final class SettlementEngine {
+
+    private static final int SCALE = 2;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private long[] balances = new long[INITIAL_CAPACITY];
+    private int size;
+
+    // Interning table: user id and index + 1 per slot, 0 marking a free slot; kept at most half full.
+    private long[] slotIds = new long[INITIAL_CAPACITY * 2];
+    private int[] slotIndices = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * A single payment of {@code amount} cents from one interned user to another.
+     */
+    public record Transfer(int from, int to, long amount) {
+    }
+
+    /**
+     * Returns the dense index of a user, assigning the next free one on first sight.
+     */
+    public int intern(long userId) {
+        int slot = slotOf(userId);
+        if (slotIndices[slot] != 0) {
+            return slotIndices[slot] - 1;
+        }
+
+        if (size == userIds.length) {
+            userIds = Arrays.copyOf(userIds, size * 2);
+            balances = Arrays.copyOf(balances, size * 2);
+        }
+        userIds[size] = userId;
+        slotIds[slot] = userId;
+        slotIndices[slot] = size + 1;
+        if (++size * 2 > slotIds.length) {
+            rehash(slotIds.length * 2);
+        }
+        return size - 1;
+    }
+
+    public void add(int user, long cents) {
+        balances[user] += cents;
+    }
+
+    public void add(long userId, BigDecimal amount) {
+        add(intern(userId), toCents(amount));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long userId(int user) {
+        return userIds[user];
+    }
+
+    public boolean contains(long userId) {
+        return slotIndices[slotOf(userId)] != 0;
+    }
+
+    public long balance(int user) {
+        return balances[user];
+    }
+
+    /**
+     * Returns the net balance of every interned user, keyed by user id.
+     */
+    public Map<Long, BigDecimal> toBalanceMap() {
+        Map<Long, BigDecimal> map = new HashMap<>();
+        for (int user = 0; user < size; user++) {
+            map.put(userIds[user], toAmount(balances[user]));
+        }
+        return map;
+    }
+
+    /**
+     * Greedily matches debtors with creditors until one side is settled.
+     * Creditors are taken in ascending order of balance and debtors in ascending order of debt;
+     * ties keep interning order. The accumulated balances are left untouched.
+     */
+    public List<Transfer> settle() {
+        long[] remaining = Arrays.copyOf(balances, size);
+        int[] creditors = new int[size];
+        int[] debtors = new int[size];
+        int creditorCount = 0;
+        int debtorCount = 0;
+
+        for (int user = 0; user < size; user++) {
+            if (remaining[user] > 0) {
+                creditors[creditorCount++] = user;
+            } else if (remaining[user] < 0) {
+                debtors[debtorCount++] = user;
+            }
+        }
+
+        sortByBalance(creditors, creditorCount, remaining, false);
+        sortByBalance(debtors, debtorCount, remaining, true);
+
+        List<Transfer> transfers = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < debtorCount && j < creditorCount) {
+            int debtor = debtors[i];
+            int creditor = creditors[j];
+
+            long amount = Math.min(-remaining[debtor], remaining[creditor]);
+            transfers.add(new Transfer(debtor, creditor, amount));
+
+            remaining[debtor] += amount;
+            remaining[creditor] -= amount;
+
+            if (remaining[debtor] == 0) i++;
+            if (remaining[creditor] == 0) j++;
+        }
+
+        return transfers;
+    }
+
+    /**
+     * Converts an amount to cents, rounding half-up beyond two decimal places.
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Splits an amount in cents into equal parts, rounding half-up like
+     * {@code amount.divide(parts, 2, RoundingMode.HALF_UP)}.
+     */
+    public static long equalShare(long cents, int parts) {
+        long share = cents / parts;
+        long remainder = Math.abs(cents % parts);
+        if (remainder * 2 >= parts) {
+            share += Long.signum(cents);
+        }
+        return share;
+    }
+
+    /**
+     * Returns the slot holding {@code userId}, or the free slot where it belongs, by linear probing.
+     */
+    private int slotOf(long userId) {
+        int mask = slotIds.length - 1;
+        int slot = mix(userId) & mask;
+        while (slotIndices[slot] != 0 && slotIds[slot] != userId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        slotIds = new long[capacity];
+        slotIndices = new int[capacity];
+        for (int user = 0; user < size; user++) {
+            int slot = slotOf(userIds[user]);
+            slotIds[slot] = userIds[user];
+            slotIndices[slot] = user + 1;
+        }
+    }
+
+    /**
+     * Spreads sequential ids over the table (Fibonacci hashing).
+     */
+    private static int mix(long userId) {
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Stable bottom-up merge sort of user indices by balance.
+     */
+    private static void sortByBalance(int[] users, int count, long[] balances, boolean descending) {
+        int[] src = users;
+        int[] dst = new int[count];
+
+        for (int width = 1; width < count; width <<= 1) {
+            for (int lo = 0; lo < count; lo += width << 1) {
+                int mid = Math.min(lo + width, count);
+                int hi = Math.min(lo + (width << 1), count);
+                int left = lo;
+                int right = mid;
+                int out = lo;
+
+                while (left < mid && right < hi) {
+                    long l = balances[src[left]];
+                    long r = balances[src[right]];
+                    boolean takeRight = descending ? r > l : r < l;
+                    dst[out++] = takeRight ? src[right++] : src[left++];
+                }
+                while (left < mid) dst[out++] = src[left++];
+                while (right < hi) dst[out++] = src[right++];
+            }
+
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+
+        if (src != users) {
+            System.arraycopy(src, 0, users, 0, count);
+        }
+    }
+}
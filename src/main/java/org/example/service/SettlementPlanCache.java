@@ -0,0 +1,121 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.dto.SimplifiedTransaction;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Caches simplified settlement plans against a global ledger version.
+ * <p>
+ * Every ledger write bumps the version once its transaction commits. Plans are kept in an immutable snapshot per
+ * version, one plan per connected component, so a read is a lock-free lookup and each component is settled at most
+ * once per version, lazily, on the first read after a write. A snapshot may be built from data slightly newer than
+ * its version, never older, so a stale plan is never served once the write that invalidated it has committed.
+ */
+@Component
+public class SettlementPlanCache {
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0));
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer rebuilds;
+
+    /**
+     * The settled plan of one component, keyed by user id: the ids of its members when it was settled, each member's
+     * net balance and the transactions involving each member.
+     */
+    public record ComponentPlan(Set<Long> members, Map<Long, BigDecimal> balances,
+                                Map<Long, List<SimplifiedTransaction>> transactions) {
+    }
+
+    private record Snapshot(long version, ConcurrentMap<Long, ComponentPlan> plans) {
+        Snapshot(long version) {
+            this(version, new ConcurrentHashMap<>());
+        }
+    }
+
+    public SettlementPlanCache(MeterRegistry registry) {
+        this.hits = Counter.builder("expensesync.settlement.cache")
+                .tag("result", "hit")
+                .description("Simplified balance reads, by settlement plan cache outcome")
+                .register(registry);
+        this.misses = Counter.builder("expensesync.settlement.cache")
+                .tag("result", "miss")
+                .description("Simplified balance reads, by settlement plan cache outcome")
+                .register(registry);
+        this.rebuilds = Timer.builder("expensesync.settlement.rebuild")
+                .description("Time spent settling a component after the ledger changed")
+                .register(registry);
+    }
+
+    /**
+     * Returns the plan of a component at the current version, settling it with {@code loader} if needed.
+     * A cached plan that does not hold the user was settled before the user's component merged into this one,
+     * so it is settled again.
+     *
+     * @param component a key that is stable for the component until the next ledger write
+     * @param userId    the member of the component the plan is read for
+     */
+    public ComponentPlan get(Long component, Long userId, Supplier<ComponentPlan> loader) {
+        long current = version.get();
+        Snapshot active = snapshot.updateAndGet(s -> s.version() >= current ? s : new Snapshot(current));
+
+        ComponentPlan plan = active.plans().get(component);
+        if (plan != null && plan.members().contains(userId)) {
+            hits.increment();
+            return plan;
+        }
+
+        misses.increment();
+        return active.plans().compute(component, (k, cached) ->
+                cached != null && cached.members().contains(userId) ? cached : rebuilds.record(loader));
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Moves the ledger to a new version. Inside a transaction the bump is deferred until after commit,
+     * so readers never cache a plan at the new version that misses the write.
+     */
+    public void invalidate() {
+        invalidate(() -> {
+        });
+    }
+
+    /**
+     * Applies {@code change} to the state plans are looked up by, then moves the ledger to a new version.
+     * Inside a transaction both are deferred until after commit, so a rolled-back write changes neither.
+     */
+    public void invalidate(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            change.run();
+            version.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.model.UserBalance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Settles independent groups of balances (connected components of the debt graph) in parallel
+ * on a dedicated {@link ForkJoinPool}, so large plans neither block nor compete with the common pool.
+ */
+@Component
+public class SettlementPlanner {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The settlement of one component: its engine (for index to user id lookups) and the transfers it emitted.
+     */
+    public record ComponentSettlement(SettlementEngine engine, List<SettlementEngine.Transfer> transfers) {
+    }
+
+    public SettlementPlanner(@Value("${expensesync.settlement.parallelism:0}") int parallelism) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Settles a single component.
+     */
+    public ComponentSettlement settle(List<UserBalance> balances) {
+        SettlementEngine engine = new SettlementEngine();
+        for (UserBalance balance : balances) {
+            engine.add(balance.getUserId(), balance.getNetBalance());
+        }
+        return new ComponentSettlement(engine, engine.settle());
+    }
+
+    /**
+     * Settles every component independently, in parallel. Results keep the order of the input.
+     */
+    public List<ComponentSettlement> settleAll(Collection<List<UserBalance>> components) {
+        return pool.submit(() -> components.parallelStream().map(this::settle).toList()).join();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
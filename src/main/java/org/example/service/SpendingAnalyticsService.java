@@ -0,0 +1,214 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.dto.CounterpartySpend;
+import org.example.dto.MonthlySpend;
+import org.example.dto.SpendingAnalyticsResponse;
+import org.example.exception.ExpenseSyncException;
+import org.example.model.User;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Per-user spending analytics, computed by scanning the primitive columns of the {@link ExpenseFactStore}.
+ * <p>
+ * A user takes part in an expense they paid for or are a participant of. For each such expense the scan adds:
+ * - the amount to their expense count and average expense size
+ * - their equal share to what they spent in its month, and the amount to what they paid if they paid it
+ * - the amount to what they shared with every other user taking part in it, ranked into top counterparties
+ * Facts are scanned in parallel chunks on cents and ids, and only the top counterparties are resolved to users.
+ */
+@Service
+public class SpendingAnalyticsService {
+
+    static final int MAX_TOP = 100;
+
+    // Facts per parallel task; smaller stores are scanned on the calling thread.
+    private static final int CHUNK = 1 << 16;
+
+    private final UserService userService;
+    private final ExpenseFactStore factStore;
+    private final Timer scanTimer;
+
+    public SpendingAnalyticsService(UserService userService, ExpenseFactStore factStore, MeterRegistry registry) {
+        this.userService = userService;
+        this.factStore = factStore;
+        this.scanTimer = Timer.builder("expensesync.analytics.scan")
+                .description("Time to scan the expense fact store for one user's spending analytics")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Returns the spending of the given user over the expenses created in the window, or all of them when it is null,
+     * with their {@code top} counterparties by number of shared expenses.
+     */
+    public SpendingAnalyticsResponse getSpending(String email, DateWindow window, int top) {
+        if (top < 0 || top > MAX_TOP) {
+            throw new ExpenseSyncException("'top' must be between 0 and " + MAX_TOP + ".");
+        }
+        User user = userService.getUserByEmail(email);
+
+        ExpenseFactStore.Facts facts = factStore.facts();
+        int firstDay = window == null || window.from() == null ? Integer.MIN_VALUE : (int) window.from().toEpochDay();
+        int lastDay = window == null || window.to() == null ? Integer.MAX_VALUE : (int) window.to().toEpochDay();
+        Scan scan = scanTimer.record(() -> scan(facts, user.getId(), firstDay, lastDay));
+
+        List<MonthlySpend> months = new ArrayList<>(scan.months.size());
+        new TreeMap<>(scan.months).forEach((month, cents) -> months.add(new MonthlySpend(
+                YearMonth.of(month / 12, month % 12 + 1).toString(),
+                SettlementEngine.toAmount(cents[0]), SettlementEngine.toAmount(cents[1]))));
+
+        BigDecimal average = scan.expenses == 0
+                ? BigDecimal.ZERO.setScale(2)
+                : SettlementEngine.toAmount(scan.totalCents).divide(BigDecimal.valueOf(scan.expenses), 2, RoundingMode.HALF_UP);
+
+        return new SpendingAnalyticsResponse(userService.getUserRef(user), scan.expenses, average, months,
+                topCounterparties(scan.counterparties, top));
+    }
+
+    private List<CounterpartySpend> topCounterparties(Map<Long, long[]> counterparties, int top) {
+        List<Map.Entry<Long, long[]>> ranked = counterparties.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Long, long[]>>comparingLong(entry -> -entry.getValue()[0])
+                        .thenComparingLong(entry -> -entry.getValue()[1])
+                        .thenComparingLong(Map.Entry::getKey))
+                .limit(top)
+                .toList();
+
+        Map<Long, User> users = userService.getUsersById(ranked.stream().map(Map.Entry::getKey).toList());
+        List<CounterpartySpend> result = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, long[]> entry : ranked) {
+            User user = users.get(entry.getKey());
+            if (user != null) {
+                result.add(new CounterpartySpend(userService.getUserRef(user), entry.getValue()[0],
+                        SettlementEngine.toAmount(entry.getValue()[1])));
+            }
+        }
+        return result;
+    }
+
+    private static Scan scan(ExpenseFactStore.Facts facts, long userId, int firstDay, int lastDay) {
+        int size = facts.size();
+        if (size <= CHUNK) {
+            return scan(facts, userId, firstDay, lastDay, 0, size);
+        }
+        return IntStream.range(0, (size + CHUNK - 1) / CHUNK)
+                .parallel()
+                .mapToObj(chunk -> scan(facts, userId, firstDay, lastDay, chunk * CHUNK, Math.min(size, (chunk + 1) * CHUNK)))
+                .reduce(Scan::merge)
+                .orElseGet(Scan::new);
+    }
+
+    private static Scan scan(ExpenseFactStore.Facts facts, long userId, int firstDay, int lastDay, int from, int to) {
+        LongBuffer amounts = facts.amounts();
+        LongBuffer payers = facts.payers();
+        IntBuffer days = facts.days();
+        IntBuffer participantEnds = facts.participantEnds();
+        LongBuffer participants = facts.participants();
+
+        Scan scan = new Scan();
+        int start = facts.participantStart(from);
+        for (int fact = from; fact < to; fact++) {
+            int end = participantEnds.get(fact);
+            int day = days.get(fact);
+            if (day < firstDay || day > lastDay) {
+                start = end;
+                continue;
+            }
+
+            boolean paid = payers.get(fact) == userId;
+            boolean participated = false;
+            for (int i = start; i < end && !participated; i++) {
+                participated = participants.get(i) == userId;
+            }
+            if (!paid && !participated) {
+                start = end;
+                continue;
+            }
+
+            long cents = amounts.get(fact);
+            scan.expenses++;
+            scan.totalCents += cents;
+            long[] month = scan.month(day);
+            if (participated) {
+                month[0] += SettlementEngine.equalShare(cents, end - start);
+            }
+            if (paid) {
+                month[1] += cents;
+            }
+
+            long payer = payers.get(fact);
+            boolean payerIsParticipant = false;
+            for (int i = start; i < end; i++) {
+                long participant = participants.get(i);
+                payerIsParticipant |= participant == payer;
+                if (participant != userId) {
+                    scan.shared(participant, cents);
+                }
+            }
+            if (!paid && !payerIsParticipant) {
+                scan.shared(payer, cents);
+            }
+            start = end;
+        }
+        return scan;
+    }
+
+    /**
+     * The totals of one chunk of facts. Months are keyed by {@code year * 12 + month - 1} and hold the cents spent
+     * and paid; counterparties are keyed by user id and hold the number and cents of the expenses shared.
+     */
+    private static final class Scan {
+        long expenses;
+        long totalCents;
+        final Map<Integer, long[]> months = new HashMap<>();
+        final Map<Long, long[]> counterparties = new HashMap<>();
+
+        // Facts are appended in creation order, so consecutive ones mostly fall on the same day.
+        private int lastDay = Integer.MIN_VALUE;
+        private long[] lastMonth;
+
+        long[] month(int day) {
+            if (day != lastDay) {
+                LocalDate date = LocalDate.ofEpochDay(day);
+                lastMonth = months.computeIfAbsent(date.getYear() * 12 + date.getMonthValue() - 1, key -> new long[2]);
+                lastDay = day;
+            }
+            return lastMonth;
+        }
+
+        void shared(long userId, long cents) {
+            long[] totals = counterparties.computeIfAbsent(userId, key -> new long[2]);
+            totals[0]++;
+            totals[1] += cents;
+        }
+
+        Scan merge(Scan other) {
+            expenses += other.expenses;
+            totalCents += other.totalCents;
+            other.months.forEach((month, cents) -> months.merge(month, cents, Scan::add));
+            other.counterparties.forEach((userId, totals) -> counterparties.merge(userId, totals, Scan::add));
+            return this;
+        }
+
+        private static long[] add(long[] left, long[] right) {
+            left[0] += right[0];
+            left[1] += right[1];
+            return left;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.service;
+
+import org.example.model.User;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the user ids needed while building a response and resolves them together,
+ * so one computation costs at most a single user query instead of one per user.
+ * Instances are meant to live for a single request and are not thread-safe.
+ */
+public class UserBatchResolver {
+
+    private final UserService userService;
+    private final Set<Long> pending = new HashSet<>();
+    private final Map<Long, User> resolved = new HashMap<>();
+
+    UserBatchResolver(UserService userService) {
+        this.userService = userService;
+    }
+
+    public void request(Long userId) {
+        if (!resolved.containsKey(userId)) {
+            pending.add(userId);
+        }
+    }
+
+    /**
+     * Returns the user with an id, resolving every pending id first.
+     * Returns null if no such user exists.
+     */
+    public User get(Long userId) {
+        request(userId);
+        if (!pending.isEmpty()) {
+            resolved.putAll(userService.getUsersById(pending));
+            pending.forEach(id -> resolved.putIfAbsent(id, null));
+            pending.clear();
+        }
+        return resolved.get(userId);
+    }
+}
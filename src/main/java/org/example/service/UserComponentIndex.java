@@ -0,0 +1,180 @@
+package org.example.service;
+
+import org.example.model.BalanceEdgeId;
+import org.example.repository.BalanceEdgeRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Union-find over users, connecting everyone who took part in the same expense.
+ * Users in different components never owe each other anything, so each component can be settled on its own.
+ * <p>
+ * The index is loaded lazily from the pairwise ledger edges and then kept up to date as expenses are recorded.
+ * Components only ever merge, and the ledger only merges them once the expenses connecting them have committed.
+ */
+@Component
+public class UserComponentIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final BalanceEdgeRepository balanceEdgeRepository;
+
+    private final Map<Long, Integer> indexById = new HashMap<>();
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private int[] rank = new int[INITIAL_CAPACITY];
+    // Members of a component form a cycle through next[], so merging two components is a single swap.
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int size;
+    private boolean loaded;
+
+    public UserComponentIndex(BalanceEdgeRepository balanceEdgeRepository) {
+        this.balanceEdgeRepository = balanceEdgeRepository;
+    }
+
+    /**
+     * Puts all the given users into the same component.
+     */
+    public synchronized void connect(Collection<Long> userIds) {
+        Iterator<Long> it = userIds.iterator();
+        if (!it.hasNext()) return;
+
+        int first = indexOf(it.next());
+        while (it.hasNext()) {
+            union(first, indexOf(it.next()));
+        }
+    }
+
+    /**
+     * Returns the ids of every user in the same component as the given user, including the user itself.
+     */
+    public synchronized List<Long> componentOf(Long userId) {
+        ensureLoaded();
+
+        Integer start = indexById.get(userId);
+        if (start == null) {
+            return List.of(userId);
+        }
+
+        List<Long> members = new ArrayList<>();
+        int member = start;
+        do {
+            members.add(ids[member]);
+            member = next[member];
+        } while (member != start);
+        return members;
+    }
+
+    /**
+     * Returns the id of the user representing the given user's component.
+     * The representative is stable until the component next merges with another one.
+     */
+    public synchronized Long rootOf(Long userId) {
+        ensureLoaded();
+
+        Integer index = indexById.get(userId);
+        return index == null ? userId : ids[find(index)];
+    }
+
+    /**
+     * Groups the given users by component, keeping the order in which each component is first seen.
+     */
+    public synchronized Collection<List<Long>> partition(Collection<Long> userIds) {
+        ensureLoaded();
+
+        Map<Long, List<Long>> components = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            Integer index = indexById.get(userId);
+            Long root = index == null ? userId : ids[find(index)];
+            components.computeIfAbsent(root, k -> new ArrayList<>()).add(userId);
+        }
+        return components.values();
+    }
+
+    /**
+     * Drops the index so it is reloaded from the ledger edges on next use. Inside a transaction the drop is deferred
+     * until after commit, so a concurrent read cannot reload and keep the edges the transaction replaces.
+     */
+    public void reset() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop();
+                }
+            });
+        } else {
+            drop();
+        }
+    }
+
+    private synchronized void drop() {
+        indexById.clear();
+        size = 0;
+        loaded = false;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+
+        for (BalanceEdgeId pair : balanceEdgeRepository.findAllPairs()) {
+            union(indexOf(pair.getDebtorId()), indexOf(pair.getCreditorId()));
+        }
+        loaded = true;
+    }
+
+    private int indexOf(Long userId) {
+        Integer index = indexById.get(userId);
+        if (index != null) return index;
+
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            parent = Arrays.copyOf(parent, size * 2);
+            rank = Arrays.copyOf(rank, size * 2);
+            next = Arrays.copyOf(next, size * 2);
+        }
+        ids[size] = userId;
+        parent[size] = size;
+        rank[size] = 0;
+        next[size] = size;
+        indexById.put(userId, size);
+        return size++;
+    }
+
+    private int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) return;
+
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA]++;
+        }
+
+        int swap = next[a];
+        next[a] = next[b];
+        next[b] = swap;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.dto.UserRef;
+import org.example.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process directory of users keyed by email and by id, bounded by size and entry age.
+ * Shared by all lookups going through {@link UserService}; the balance pipeline works on user ids
+ * and resolves them here only to build responses, through user references cached alongside the users.
+ */
+@Component
+public class UserDirectory {
+
+    private final Cache<String, User> usersByEmail;
+    private final Cache<Long, User> usersById;
+    private final Cache<Long, UserRef> refsById;
+
+    public UserDirectory(@Value("${expensesync.user-directory.max-size:10000}") long maxSize,
+                         @Value("${expensesync.user-directory.ttl:10m}") Duration ttl) {
+        this.usersByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.refsById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public User get(String email) {
+        return usersByEmail.getIfPresent(email);
+    }
+
+    public Map<String, User> getAll(Collection<String> emails) {
+        return usersByEmail.getAllPresent(emails);
+    }
+
+    public Map<Long, User> getAllById(Collection<Long> ids) {
+        return usersById.getAllPresent(ids);
+    }
+
+    /**
+     * Returns the response reference of the user, encoded once per user. Names and emails never change,
+     * so a cached reference stays valid for as long as it is kept.
+     */
+    public UserRef ref(User user) {
+        if (user.getId() == null) {
+            return UserRef.of(user.getName(), user.getEmail());
+        }
+        return refsById.get(user.getId(), id -> UserRef.of(user.getName(), user.getEmail()));
+    }
+
+    public void put(User user) {
+        usersByEmail.put(user.getEmail(), user);
+        if (user.getId() != null) {
+            usersById.put(user.getId(), user);
+        }
+    }
+
+    public void putAll(Collection<User> users) {
+        users.forEach(this::put);
+    }
+
+    /**
+     * Adds users inserted by the current transaction once it commits, or right away outside one,
+     * so a rolled back insert never leaves ids that do not exist in the directory.
+     */
+    public void putAllAfterCommit(Collection<User> users) {
+        List<User> inserted = List.copyOf(users);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putAll(inserted);
+                }
+            });
+        } else {
+            putAll(inserted);
+        }
+    }
+}
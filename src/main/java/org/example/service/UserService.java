@@ -1,24 +1,42 @@
 package org.example.service;
 
+import jakarta.persistence.EntityManager;
 import org.apache.commons.lang3.StringUtils;
+import org.example.dto.BatchItemStatus;
+import org.example.dto.BatchUserResponse;
+import org.example.dto.BatchUserResult;
 import org.example.dto.CreateUserRequest;
+import org.example.dto.UserRef;
 import org.example.dto.UserResponse;
 import org.example.exception.ExpenseSyncException;
 import org.example.exception.UserNotFoundException;
 import org.example.model.User;
 import org.example.repository.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service
 public class UserService {
+    // Users checked and inserted per round trip by bulk registration; keeps IN lists and the persistence context small.
+    static final int BATCH_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
+    private final EntityManager entityManager;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserDirectory userDirectory, EntityManager entityManager) {
         this.userRepository = userRepository;
+        this.userDirectory = userDirectory;
+        this.entityManager = entityManager;
     }
 
     public UserResponse createUser(CreateUserRequest request) {
@@ -30,11 +48,96 @@ public class UserService {
         user.setName(request.getName());
         user.setEmail(request.getEmail());
         User savedUser = userRepository.save(user);
-        return UserResponse.builder()
-                .uuid(savedUser.getUuid()).name(savedUser.getName()).email(savedUser.getEmail())
+        userDirectory.put(savedUser);
+        return toResponse(savedUser);
+    }
+
+    /**
+     * Registers users in bulk. Emails and names are deduplicated in memory, then checked against existing users
+     * with one email and one name query per {@value #BATCH_CHUNK_SIZE} users, and new users are inserted in JDBC batches.
+     * Invalid, repeated or already registered items fail individually; results are in request order.
+     */
+    @Transactional
+    public BatchUserResponse createUsers(List<CreateUserRequest> requests) {
+        BatchUserResult[] results = new BatchUserResult[requests.size()];
+        Set<String> emails = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateUserRequest request = requests.get(i);
+            String error = null;
+            if (StringUtils.isBlank(request.getName()) || StringUtils.isBlank(request.getEmail())) {
+                error = "Name and email are required.";
+            } else if (emails.contains(request.getEmail())) {
+                error = "Email repeated in batch";
+            } else if (names.contains(request.getName())) {
+                error = "Name repeated in batch";
+            }
+
+            if (error != null) {
+                results[i] = new BatchUserResult(i, BatchItemStatus.FAILED, null, error);
+            } else {
+                emails.add(request.getEmail());
+                names.add(request.getName());
+                candidates.add(i);
+            }
+        }
+
+        int created = 0;
+        for (int from = 0; from < candidates.size(); from += BATCH_CHUNK_SIZE) {
+            List<Integer> chunk = candidates.subList(from, Math.min(candidates.size(), from + BATCH_CHUNK_SIZE));
+            created += createChunk(requests, chunk, results);
+        }
+
+        return BatchUserResponse.builder()
+                .created(created)
+                .failed(requests.size() - created)
+                .results(Arrays.asList(results))
                 .build();
     }
 
+    private int createChunk(List<CreateUserRequest> requests, List<Integer> chunk, BatchUserResult[] results) {
+        Set<String> emails = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (int index : chunk) {
+            emails.add(requests.get(index).getEmail());
+            names.add(requests.get(index).getName());
+        }
+
+        // Two lookups, as OR-ing the IN lists would stop the database from using the unique indexes.
+        Set<String> existingEmails = new HashSet<>();
+        userRepository.findAllByEmailIn(emails).forEach(existing -> existingEmails.add(existing.getEmail()));
+        Set<String> existingNames = new HashSet<>();
+        userRepository.findAllByNameIn(names).forEach(existing -> existingNames.add(existing.getName()));
+
+        List<User> users = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        for (int index : chunk) {
+            CreateUserRequest request = requests.get(index);
+            if (existingEmails.contains(request.getEmail())) {
+                results[index] = new BatchUserResult(index, BatchItemStatus.FAILED, null, "Email already registered");
+            } else if (existingNames.contains(request.getName())) {
+                results[index] = new BatchUserResult(index, BatchItemStatus.FAILED, null, "Name already taken");
+            } else {
+                users.add(new User(request.getName(), request.getEmail()));
+                indices.add(index);
+            }
+        }
+
+        userRepository.saveAll(users);
+        entityManager.flush();
+        entityManager.clear();
+        // A later chunk can still roll the whole call back, so users are only cached once it commits.
+        userDirectory.putAllAfterCommit(users);
+
+        for (int j = 0; j < users.size(); j++) {
+            int index = indices.get(j);
+            results[index] = new BatchUserResult(index, BatchItemStatus.CREATED, toResponse(users.get(j)), null);
+        }
+        return users.size();
+    }
+
     public List<UserResponse> getAllUsers(String email) {
         List<User> users;
         if (StringUtils.isNotEmpty(email)) {
@@ -44,17 +147,76 @@ public class UserService {
             users = userRepository.findAll();
         }
 
-        return users.stream().map(user ->
-                        UserResponse.builder().uuid(user.getUuid()).name(user.getName()).email(user.getEmail()).build())
-                .toList();
+        return users.stream().map(UserService::toResponse).toList();
     }
 
     public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
+        User cached = userDirectory.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UserNotFoundException("User with email '" + email + "' not found."));
+        userDirectory.put(user);
+        return user;
+    }
+
+    public Set<User> getAllUsersByEmail(Set<String> emails) {
+        return new HashSet<>(getUsersByEmail(emails).values());
+    }
+
+    /**
+     * Resolves users by email, keyed by email. Emails missing from the user directory
+     * are loaded with a single query; unknown emails are absent from the result.
+     */
+    public Map<String, User> getUsersByEmail(Set<String> emails) {
+        Map<String, User> users = new HashMap<>(userDirectory.getAll(emails));
+        if (users.size() == emails.size()) {
+            return users;
+        }
+
+        Set<String> missing = new HashSet<>(emails);
+        missing.removeAll(users.keySet());
+        List<User> loaded = userRepository.findAllByEmailIn(missing);
+        userDirectory.putAll(loaded);
+        loaded.forEach(user -> users.put(user.getEmail(), user));
+        return users;
+    }
+
+    /**
+     * Resolves users by id, keyed by id. Ids missing from the user directory
+     * are loaded with a single query; unknown ids are absent from the result.
+     */
+    public Map<Long, User> getUsersById(Collection<Long> ids) {
+        Map<Long, User> users = new HashMap<>(userDirectory.getAllById(ids));
+        if (users.size() == ids.size()) {
+            return users;
+        }
+
+        Set<Long> missing = new HashSet<>(ids);
+        missing.removeAll(users.keySet());
+        List<User> loaded = userRepository.findAllById(missing);
+        userDirectory.putAll(loaded);
+        loaded.forEach(user -> users.put(user.getId(), user));
+        return users;
+    }
+
+    /**
+     * Returns the cached reference used to render the user in balance responses.
+     */
+    public UserRef getUserRef(User user) {
+        return userDirectory.ref(user);
+    }
+
+    private static UserResponse toResponse(User user) {
+        return UserResponse.builder().uuid(user.getUuid()).name(user.getName()).email(user.getEmail()).build();
     }
 
-    public Set<User> getAllUsersByEmail(Iterable<String> email) {
-        return new HashSet<>(userRepository.findAllByEmailIn(email));
+    /**
+     * Creates a resolver that batches the user lookups of a single computation.
+     */
+    public UserBatchResolver newBatchResolver() {
+        return new UserBatchResolver(this);
     }
 }
@@ -0,0 +1,77 @@
+package org.example.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user change versions, feeding the strong ETags of balance and expense reads.
+ * <p>
+ * A user's version is bumped whenever an expense they take part in is created and again when it is projected
+ * onto the ledger, so every read derived from their expenses or balances changes tag with it. Writes that rewrite
+ * the whole ledger bump a global generation instead. Bumps are deferred until the write commits: a read may
+ * return newer data under the previous tag, which only costs the client one more full response, but a tag is
+ * never attached to data older than it.
+ * <p>
+ * Versions live in memory, so tags carry the process start time and never match across restarts.
+ */
+@Component
+public class UserVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the ETag of reads that only depend on one user's expenses or balances.
+     */
+    public String tag(Long userId) {
+        return tag(List.of(userId));
+    }
+
+    /**
+     * Returns the ETag of reads that depend on several users, such as the settlement of a whole component.
+     * Versions only grow, so their sum changes whenever any of the users changes.
+     */
+    public String tag(Collection<Long> userIds) {
+        long sum = 0;
+        for (Long userId : userIds) {
+            sum += versions.getOrDefault(userId, 0L);
+        }
+        return "\"" + epoch + "-" + generation.get() + "-" + sum + "\"";
+    }
+
+    /**
+     * Bumps the version of the given users once the current transaction commits, or right away outside one.
+     */
+    public void bump(Collection<Long> userIds) {
+        List<Long> ids = List.copyOf(userIds);
+        afterCommit(() -> ids.forEach(userId -> versions.merge(userId, 1L, Long::sum)));
+    }
+
+    /**
+     * Bumps the version of every user once the current transaction commits, or right away outside one.
+     */
+    public void bumpAll() {
+        afterCommit(generation::incrementAndGet);
+    }
+
+    private static void afterCommit(Runnable bump) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- Add composite index for listing a group's expenses in creation order
+CREATE INDEX idx_expense_group_created ON expenses (group_id, created_at);
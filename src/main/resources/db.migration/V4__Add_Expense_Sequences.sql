@@ -0,0 +1,8 @@
+-- Pooled sequences for expense ids, so inserts can be batched (increment matches allocationSize)
+CREATE SEQUENCE expense_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE expense_participant_seq START WITH 1 INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer hands out the ids up to each value it reads, so the first value read must be a full
+-- allocation above the ids already assigned by the identity columns
+ALTER SEQUENCE expense_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM expenses);
+ALTER SEQUENCE expense_participant_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM expense_participant);
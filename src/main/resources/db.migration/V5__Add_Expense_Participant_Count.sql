@@ -0,0 +1,3 @@
+-- Store the number of participants of each expense, so equal shares can be summed per user without a per-row count
+ALTER TABLE expenses ADD COLUMN participant_count INT;
+UPDATE expenses e SET participant_count = (SELECT COUNT(*) FROM expense_participant p WHERE p.expense_id = e.id);
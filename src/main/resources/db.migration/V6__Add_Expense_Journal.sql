@@ -0,0 +1,9 @@
+-- Pooled sequence numbering the append-only expense journal (increment matches allocationSize)
+CREATE SEQUENCE expense_journal_seq START WITH 1 INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer hands out the numbers up to each value it reads, so the first value read must be a
+-- full allocation above the entries already journaled
+ALTER SEQUENCE expense_journal_seq RESTART WITH (SELECT COALESCE(MAX(sequence), 0) + 50 FROM expense_journal);
+
+-- Index for finding the last journal entry old enough to be included in a balance snapshot
+CREATE INDEX idx_expense_journal_recorded ON expense_journal (recorded_at);
@@ -0,0 +1,6 @@
+-- Pooled sequence for user ids, so bulk registrations can be batched (increment matches allocationSize)
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer hands out the ids up to each value it reads, so the first value read must be a full
+-- allocation above the ids already assigned by the identity column
+ALTER SEQUENCE users_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM users);
@@ -0,0 +1,193 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.metrics.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Locks in the number of JDBC statements each endpoint executes on the request thread, counted through the
+ * datasource proxy. Every budget is checked on a small and a larger data set, so an N+1 shows up as a failure.
+ * Sequence calls are left out, as the pooled id generators only fetch a new block every 50 ids.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statement-budget;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class EndpointStatementBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String run;
+
+    @BeforeEach
+    void setup() {
+        run = Long.toString(System.nanoTime());
+    }
+
+    @Test
+    void testCreateExpense_budgetDoesNotGrowWithParticipants() throws Exception {
+        List<String> few = users("few", 3);
+        List<String> many = users("many", 12);
+
+        assertEquals(4, statementsOf(expense(few.get(0), few)));
+        assertEquals(4, statementsOf(expense(many.get(0), many)));
+    }
+
+    @Test
+    void testExpenseSummary_budgetDoesNotGrowWithHistory() throws Exception {
+        List<String> small = users("small", 3);
+        List<String> large = users("large", 6);
+        createExpenses(small, 1);
+        createExpenses(large, 15);
+
+        for (String email : List.of(small.get(0), large.get(0))) {
+            assertEquals(1, statementsOf(get("/expenses").param("email", email)));
+            assertEquals(2, statementsOf(get("/expenses").param("email", email).param("showParticipants", "true")));
+            assertEquals(2, statementsOf(get("/expenses/page").param("email", email).param("limit", "10")
+                    .param("showParticipants", "true")));
+        }
+    }
+
+    @Test
+    void testBalances_budgetDoesNotGrowWithCounterparties() throws Exception {
+        List<String> small = users("small", 2);
+        List<String> large = users("large", 10);
+        List<String> warmup = users("warmup", 2);
+        createExpenses(small, 2);
+        createExpenses(warmup, 1);
+        String token = createExpenses(large, 10);
+        // The first simplified read also builds the process-wide component index.
+        statementsOf(get("/balances/simplified").param("email", warmup.get(0)).param("after", token));
+
+        for (String email : List.of(small.get(0), large.get(0))) {
+            assertEquals(1, statementsOf(get("/balances/raw").param("email", email).param("after", token)));
+            assertEquals(1, statementsOf(get("/balances/simplified").param("email", email)));
+            assertEquals(0, statementsOf(get("/balances/simplified").param("email", email)));
+        }
+    }
+
+    @Test
+    void testGroupBalances_budgetDoesNotGrowWithMembers() throws Exception {
+        for (int size : new int[]{2, 8}) {
+            List<String> members = users("group" + size, size);
+            Long groupId = createGroup(members);
+            String token = null;
+            for (int i = 0; i < 3; i++) {
+                token = postJson(expenseBody(members.get(i % size), members), "/groups/" + groupId + "/expenses")
+                        .get("ledgerToken").asText();
+            }
+
+            assertEquals(2, statementsOf(get("/groups/" + groupId + "/balances/simplified").param("after", token)));
+        }
+    }
+
+    @Test
+    void testConditionalGets_notModifiedWithoutStatementsUntilTheUserChanges() throws Exception {
+        List<String> pair = users("etag", 2);
+        List<String> other = users("etag-other", 2);
+        String email = pair.get(0);
+        List<Function<String, MockHttpServletRequestBuilder>> reads = List.of(
+                token -> get("/balances/raw").param("email", email).param("after", token),
+                token -> get("/balances/simplified").param("email", email).param("after", token),
+                token -> get("/expenses").param("email", email));
+
+        String token = createExpenses(pair, 1);
+        List<String> tags = new ArrayList<>();
+        for (Function<String, MockHttpServletRequestBuilder> read : reads) {
+            String tag = mockMvc.perform(read.apply(token)).andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertEquals(0, statementsOf(read.apply(token).header("If-None-Match", tag), status().isNotModified()));
+            tags.add(tag);
+        }
+
+        // Expenses of unrelated users leave the tags alone; the user's own expenses change them.
+        String otherToken = createExpenses(other, 1);
+        for (int i = 0; i < reads.size(); i++) {
+            mockMvc.perform(reads.get(i).apply(otherToken).header("If-None-Match", tags.get(i)))
+                    .andExpect(status().isNotModified());
+        }
+
+        String newToken = createExpenses(pair, 1);
+        for (int i = 0; i < reads.size(); i++) {
+            mockMvc.perform(reads.get(i).apply(newToken).header("If-None-Match", tags.get(i)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private long statementsOf(MockHttpServletRequestBuilder request) throws Exception {
+        return statementsOf(request, status().isOk());
+    }
+
+    private long statementsOf(MockHttpServletRequestBuilder request, ResultMatcher expected) throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.begin(sql -> !sql.startsWith("select next value for"))) {
+            mockMvc.perform(request).andExpect(expected);
+            return scope.statements();
+        }
+    }
+
+    private List<String> users(String prefix, int count) throws Exception {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String email = prefix + i + "-" + run + "@example.com";
+            postJson(Map.of("name", prefix + " " + i + " " + run, "email", email), "/users");
+            emails.add(email);
+        }
+        return emails;
+    }
+
+    private String createExpenses(List<String> participants, int count) throws Exception {
+        String token = null;
+        for (int i = 0; i < count; i++) {
+            token = postJson(expenseBody(participants.get(i % participants.size()), participants), "/expenses")
+                    .get("ledgerToken").asText();
+        }
+        return token;
+    }
+
+    private Long createGroup(List<String> members) throws Exception {
+        return postJson(Map.of("name", "Group " + run, "memberEmails", members), "/groups").get("id").asLong();
+    }
+
+    private MockHttpServletRequestBuilder expense(String payer, List<String> participants) throws Exception {
+        return post("/expenses").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(expenseBody(payer, participants)));
+    }
+
+    private JsonNode postJson(Object body, String path) throws Exception {
+        String response = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private static Map<String, Object> expenseBody(String payer, List<String> participants) {
+        return Map.of(
+                "description", "Dinner",
+                "amount", 90,
+                "paidByEmail", payer,
+                "splitType", "EQUAL",
+                "participants", participants.stream().map(email -> Map.of("email", email)).toList());
+    }
+}
@@ -1,22 +1,38 @@
 package org.example.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.dto.ExpenseTotals;
+import org.example.dto.GroupUserAmount;
+import org.example.dto.LedgerRebuildReport;
 import org.example.dto.RawBalanceResponse;
 import org.example.dto.RawTransaction;
 import org.example.dto.SimplifiedBalanceResponse;
 import org.example.dto.SimplifiedTransaction;
-import org.example.model.Expense;
-import org.example.model.ExpenseParticipant;
+import org.example.dto.UserAmount;
+import org.example.dto.UserPairAmount;
+import org.example.dto.UserRef;
+import org.example.exception.ExpenseSyncException;
+import org.example.exception.UserNotFoundException;
+import org.example.model.BalanceEdge;
 import org.example.model.User;
+import org.example.model.UserBalance;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,88 +45,151 @@ class BalanceServiceTest {
     @Mock
     private ExpenseService expenseService;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private UserComponentIndex componentIndex;
+
+    @Mock
+    private GroupService groupService;
+
+    @Spy
+    private SettlementPlanner settlementPlanner = new SettlementPlanner(2);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private SettlementPlanCache planCache = new SettlementPlanCache(meterRegistry);
+
+    @Mock
+    private ExpenseJournal expenseJournal;
+
+    @Spy
+    private SimpleMeterRegistry serviceMeterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private BalanceService balanceService;
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        when(userService.getUserRef(any())).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            return UserRef.of(user.getName(), user.getEmail());
+        });
     }
 
     @Test
     void testGetRawBalance_returnsCorrectTransactions() {
         User krish = new User("Krish", "krish@example.com");
+        krish.setId(1L);
         User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
 
-        Expense expense = new Expense();
-        expense.setDescription("Snacks");
-        expense.setAmount(BigDecimal.valueOf(100));
-        expense.setPaidBy(krish);
-        expense.setCreatedAt(LocalDateTime.now());
-
-        ExpenseParticipant p1 = new ExpenseParticipant();
-        p1.setUser(krish);
-        p1.setExpense(expense);
-        p1.setShareAmount(BigDecimal.valueOf(50));
-
-        ExpenseParticipant p2 = new ExpenseParticipant();
-        p2.setUser(janhvi);
-        p2.setExpense(expense);
-        p2.setShareAmount(BigDecimal.valueOf(50));
-
-        expense.setParticipants(List.of(p1, p2));
+        BalanceEdge edge = new BalanceEdge(krish, janhvi, BigDecimal.valueOf(-50));
 
         when(userService.getUserByEmail("krish@example.com")).thenReturn(krish);
-        when(userService.getUserByEmail("janhvi@example.com")).thenReturn(janhvi);
-        when(expenseService.getExpensesByUserEmail("krish@example.com")).thenReturn(List.of(expense));
+        when(ledgerService.getEdges(krish)).thenReturn(List.of(edge));
 
         RawBalanceResponse response = balanceService.getRawBalance("krish@example.com");
 
         assertNotNull(response);
-        assertEquals("krish@example.com", response.getUser().get("email"));
+        assertEquals("krish@example.com", response.getUser().email());
         assertEquals(1, response.getTransactions().size());
 
         RawTransaction txn = response.getTransactions().get(0);
-        assertEquals("janhvi@example.com", txn.getFrom().get("email"));
-        assertEquals("krish@example.com", txn.getTo().get("email"));
+        assertEquals("janhvi@example.com", txn.getFrom().email());
+        assertEquals("krish@example.com", txn.getTo().email());
         assertEquals(BigInteger.valueOf(50), txn.getAmount().toBigInteger());
+        assertEquals(BigInteger.valueOf(50), response.getNetBalance().toBigInteger());
     }
 
     @Test
-    void testGetSimplifiedBalance_returnsOptimizedTransactions() {
-        User krish = new User("Krish", "krish@example.com");
-        User janhvi = new User("Janhvi", "janhvi@example.com");
-        User harsh = new User("Harsh", "harsh@example.com");
+    void testRawBalanceResponse_keepsJsonShapeWithCachedUserRefs() throws Exception {
+        User krish = user(1L, "Krish \"K\"", "krish@example.com");
+        User janhvi = user(2L, "Janhvi", "janhvi@example.com");
 
-        Expense expense1 = new Expense();
-        expense1.setDescription("Lunch");
-        expense1.setAmount(BigDecimal.valueOf(1500));
-        expense1.setPaidBy(krish);
-        expense1.setCreatedAt(LocalDateTime.now());
+        when(userService.getUserByEmail("krish@example.com")).thenReturn(krish);
+        when(ledgerService.getEdges(krish)).thenReturn(List.of(new BalanceEdge(krish, janhvi, new BigDecimal("-50.00"))));
 
-        ExpenseParticipant ep1 = new ExpenseParticipant();
-        ep1.setUser(krish);
-        ep1.setShareAmount(BigDecimal.valueOf(500));
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        String json = objectMapper.writeValueAsString(balanceService.getRawBalance("krish@example.com"));
 
-        ExpenseParticipant ep2 = new ExpenseParticipant();
-        ep2.setUser(janhvi);
-        ep2.setShareAmount(BigDecimal.valueOf(500));
+        JsonNode node = objectMapper.readTree(json);
+        assertEquals("Krish \"K\"", node.get("user").get("name").asText());
+        assertEquals("janhvi@example.com", node.get("transactions").get(0).get("from").get("email").asText());
+        assertEquals("krish@example.com", node.get("transactions").get(0).get("to").get("email").asText());
+        assertTrue(json.contains("\"amount\":50.00"));
 
-        ExpenseParticipant ep3 = new ExpenseParticipant();
-        ep3.setUser(harsh);
-        ep3.setShareAmount(BigDecimal.valueOf(500));
+        RawBalanceResponse parsed = objectMapper.readValue(json, RawBalanceResponse.class);
+        assertEquals(UserRef.of("Janhvi", "janhvi@example.com"), parsed.getTransactions().get(0).getFrom());
+    }
 
-        expense1.setParticipants(List.of(ep1, ep2, ep3));
+    @Test
+    void testGetRawBalance_inWindow_combinesMonthlyRollupsWithPartialMonths() {
+        User krish = user(1L, "Krish", "krish@example.com");
+        User janhvi = user(2L, "Janhvi", "janhvi@example.com");
+        User harsh = user(3L, "Harsh", "harsh@example.com");
+        DateWindow window = new DateWindow(LocalDate.of(2026, 1, 15), LocalDate.of(2026, 3, 31));
 
-        when(expenseService.fetchAllExpenses()).thenReturn(List.of(expense1));
         when(userService.getUserByEmail("krish@example.com")).thenReturn(krish);
-        when(userService.getUserByEmail("janhvi@example.com")).thenReturn(janhvi);
-        when(userService.getUserByEmail("harsh@example.com")).thenReturn(harsh);
+        when(ledgerService.getMonthlyEdges(1L, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 4, 1)))
+                .thenReturn(Map.of(2L, new BigDecimal("-40.00"), 3L, new BigDecimal("10.00")));
+        when(expenseService.getEdgeTotals(1L, window.partialRanges().get(0)))
+                .thenReturn(Map.of(2L, new BigDecimal("-10.00"), 3L, new BigDecimal("-10.00")));
+        when(userService.getUsersById(anyCollection())).thenReturn(Map.of(2L, janhvi, 3L, harsh));
+
+        RawBalanceResponse response = balanceService.getRawBalance("krish@example.com", window);
+
+        assertEquals(1, response.getTransactions().size());
+        RawTransaction txn = response.getTransactions().get(0);
+        assertEquals("janhvi@example.com", txn.getFrom().email());
+        assertEquals(0, new BigDecimal("50.00").compareTo(txn.getAmount()));
+        assertEquals(0, new BigDecimal("50.00").compareTo(response.getNetBalance()));
+        verify(expenseService, times(1)).getEdgeTotals(anyLong(), any());
+        verify(ledgerService, never()).getEdges(any());
+    }
+
+    @Test
+    void testGetRawBalance_recordsLatencyAndCallSize() {
+        User krish = user(1L, "Krish", "krish@example.com");
+        User janhvi = user(2L, "Janhvi", "janhvi@example.com");
+        User harsh = user(3L, "Harsh", "harsh@example.com");
+
+        when(userService.getUserByEmail("krish@example.com")).thenReturn(krish);
+        when(ledgerService.getEdges(krish)).thenReturn(List.of(
+                new BalanceEdge(krish, janhvi, BigDecimal.valueOf(-50)),
+                new BalanceEdge(krish, harsh, BigDecimal.valueOf(20))));
+
+        balanceService.getRawBalance("krish@example.com");
+
+        assertEquals(1, serviceMeterRegistry.timer("expensesync.balance.raw").count());
+        assertEquals(2.0, serviceMeterRegistry.get("expensesync.balance.rows.scanned").tag("call", "raw").gauge().value());
+        assertEquals(2.0, serviceMeterRegistry.get("expensesync.balance.transactions.emitted").tag("call", "raw").gauge().value());
+    }
+
+    @Test
+    void testGetSimplifiedBalance_returnsOptimizedTransactions() {
+        User krish = user(1L, "Krish", "krish@example.com");
+        User janhvi = user(2L, "Janhvi", "janhvi@example.com");
+        User harsh = user(3L, "Harsh", "harsh@example.com");
+
+        when(componentIndex.rootOf(1L)).thenReturn(1L);
+        when(componentIndex.componentOf(1L)).thenReturn(List.of(1L, 2L, 3L));
+        when(ledgerService.getUserBalances(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new UserBalance(krish, BigDecimal.valueOf(1000)),
+                new UserBalance(janhvi, BigDecimal.valueOf(-500)),
+                new UserBalance(harsh, BigDecimal.valueOf(-500))
+        ));
+        when(userService.getUserByEmail("krish@example.com")).thenReturn(krish);
+        when(userService.newBatchResolver()).thenAnswer(invocation -> new UserBatchResolver(userService));
+        when(userService.getUsersById(anySet())).thenReturn(Map.of(1L, krish, 2L, janhvi, 3L, harsh));
 
         SimplifiedBalanceResponse response = balanceService.getSimplifiedBalance("krish@example.com");
 
         assertNotNull(response);
-        assertEquals("krish@example.com", response.getUser().get("email"));
+        assertEquals("krish@example.com", response.getUser().email());
         assertEquals(2, response.getTransactions().size());
 
         BigDecimal total = response.getTransactions().stream()
@@ -119,5 +198,266 @@ class BalanceServiceTest {
 
         assertEquals(BigInteger.valueOf(1000), total.toBigInteger());
     }
-}
 
+    @Test
+    void testGetSimplifiedBalance_resolvesUsersWithConstantQueries() {
+        User creditor = user(0L, "Creditor", "creditor@example.com");
+        List<Long> component = new ArrayList<>();
+        List<UserBalance> balances = new ArrayList<>();
+        Map<Long, User> users = new HashMap<>();
+        component.add(creditor.getId());
+        balances.add(new UserBalance(creditor, BigDecimal.valueOf(5000)));
+        users.put(creditor.getId(), creditor);
+        for (int i = 1; i <= 50; i++) {
+            User debtor = user((long) i, "Debtor " + i, "debtor" + i + "@example.com");
+            component.add(debtor.getId());
+            balances.add(new UserBalance(debtor, BigDecimal.valueOf(-100)));
+            users.put(debtor.getId(), debtor);
+        }
+
+        when(componentIndex.rootOf(0L)).thenReturn(0L);
+        when(componentIndex.componentOf(0L)).thenReturn(component);
+        when(ledgerService.getUserBalances(component)).thenReturn(balances);
+        when(userService.getUserByEmail("creditor@example.com")).thenReturn(creditor);
+        when(userService.newBatchResolver()).thenAnswer(invocation -> new UserBatchResolver(userService));
+        when(userService.getUsersById(anySet())).thenReturn(users);
+
+        SimplifiedBalanceResponse response = balanceService.getSimplifiedBalance("creditor@example.com");
+
+        assertEquals(50, response.getTransactions().size());
+        verify(userService, times(1)).getUsersById(anySet());
+        verify(userService, times(1)).getUserByEmail(anyString());
+    }
+
+    @Test
+    void testGetSimplifiedBalance_cachesPlanUntilLedgerChanges() {
+        User krish = user(1L, "Krish", "krish@example.com");
+        User janhvi = user(2L, "Janhvi", "janhvi@example.com");
+
+        when(componentIndex.rootOf(anyLong())).thenReturn(1L);
+        when(componentIndex.componentOf(anyLong())).thenReturn(List.of(1L, 2L));
+        when(ledgerService.getUserBalances(List.of(1L, 2L))).thenReturn(List.of(
+                new UserBalance(krish, BigDecimal.valueOf(100)),
+                new UserBalance(janhvi, BigDecimal.valueOf(-100))
+        ));
+        when(userService.getUserByEmail("krish@example.com")).thenReturn(krish);
+        when(userService.getUserByEmail("janhvi@example.com")).thenReturn(janhvi);
+        when(userService.newBatchResolver()).thenAnswer(invocation -> new UserBatchResolver(userService));
+        when(userService.getUsersById(anySet())).thenReturn(Map.of(1L, krish, 2L, janhvi));
+
+        SimplifiedBalanceResponse first = balanceService.getSimplifiedBalance("krish@example.com");
+        SimplifiedBalanceResponse second = balanceService.getSimplifiedBalance("janhvi@example.com");
+
+        verify(ledgerService, times(1)).getUserBalances(anyCollection());
+        assertEquals(first.getTransactions(), second.getTransactions());
+        assertEquals(0, BigDecimal.valueOf(-100).compareTo(second.getNetBalance()));
+
+        planCache.invalidate();
+        balanceService.getSimplifiedBalance("krish@example.com");
+
+        verify(ledgerService, times(2)).getUserBalances(anyCollection());
+        assertEquals(1.0, meterRegistry.counter("expensesync.settlement.cache", "result", "hit").count());
+        assertEquals(2.0, meterRegistry.counter("expensesync.settlement.cache", "result", "miss").count());
+        assertEquals(2, serviceMeterRegistry.timer("expensesync.balance.minimize").count());
+    }
+
+    @Test
+    void testGetSimplifiedBalance_resettlesACachedPlanMissingTheUser() {
+        User krish = user(1L, "Krish", "krish@example.com");
+        User janhvi = user(2L, "Janhvi", "janhvi@example.com");
+        User harsh = user(3L, "Harsh", "harsh@example.com");
+
+        when(componentIndex.rootOf(anyLong())).thenReturn(1L);
+        when(componentIndex.componentOf(1L)).thenReturn(List.of(1L, 2L));
+        when(ledgerService.getUserBalances(List.of(1L, 2L))).thenReturn(List.of(
+                new UserBalance(krish, BigDecimal.valueOf(100)),
+                new UserBalance(janhvi, BigDecimal.valueOf(-100))
+        ));
+        when(userService.getUserByEmail("krish@example.com")).thenReturn(krish);
+        when(userService.getUserByEmail("harsh@example.com")).thenReturn(harsh);
+        when(userService.newBatchResolver()).thenAnswer(invocation -> new UserBatchResolver(userService));
+        when(userService.getUsersById(anySet())).thenReturn(Map.of(1L, krish, 2L, janhvi, 3L, harsh));
+        balanceService.getSimplifiedBalance("krish@example.com");
+
+        // Harsh's component merged into Krish's before the ledger version moved.
+        when(componentIndex.componentOf(3L)).thenReturn(List.of(1L, 2L, 3L));
+        when(ledgerService.getUserBalances(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new UserBalance(krish, BigDecimal.valueOf(150)),
+                new UserBalance(janhvi, BigDecimal.valueOf(-100)),
+                new UserBalance(harsh, BigDecimal.valueOf(-50))
+        ));
+        SimplifiedBalanceResponse response = balanceService.getSimplifiedBalance("harsh@example.com");
+
+        assertEquals(0, BigDecimal.valueOf(-50).compareTo(response.getNetBalance()));
+        assertEquals(1, response.getTransactions().size());
+        assertEquals(2.0, meterRegistry.counter("expensesync.settlement.cache", "result", "miss").count());
+    }
+
+    @Test
+    void testRebuildLedger_reportsAndRepairsDiscrepancies() {
+        when(expenseService.getExpenseTotals()).thenReturn(new ExpenseTotals(1,
+                List.of(new UserAmount(1L, new BigDecimal("200.00"))),
+                List.of(new UserAmount(1L, new BigDecimal("100.00")), new UserAmount(2L, new BigDecimal("100.00"))),
+                List.of(new UserPairAmount(2L, 1L, new BigDecimal("100.00"))),
+                List.of(),
+                List.of()));
+        when(ledgerService.getNetBalances()).thenReturn(Map.of(1L, BigDecimal.valueOf(100), 2L, BigDecimal.valueOf(-50)));
+        when(ledgerService.getAllEdges()).thenReturn(Map.of(
+                1L, Map.of(2L, BigDecimal.valueOf(-100)),
+                2L, Map.of(1L, BigDecimal.valueOf(100))
+        ));
+        stubUsers(user(1L, "Krish", "krish@example.com"), user(2L, "Janhvi", "janhvi@example.com"));
+
+        LedgerRebuildReport report = balanceService.rebuildLedger(true);
+
+        assertEquals(1, report.getExpensesScanned());
+        assertEquals(2, report.getUsersChecked());
+        assertEquals(1, report.getDiscrepancies().size());
+        assertEquals("janhvi@example.com", report.getDiscrepancies().get(0).getEmail());
+        assertEquals(0, BigDecimal.valueOf(-100).compareTo(report.getDiscrepancies().get(0).getRecomputedBalance()));
+        verify(ledgerService).replaceBalances(anyMap());
+        verify(ledgerService).replaceEdges(anyMap());
+    }
+
+    @Test
+    void testRebuildLedger_netsDatabaseTotalsPerPairAndGroup() {
+        when(expenseService.getExpenseTotals()).thenReturn(new ExpenseTotals(2,
+                List.of(new UserAmount(1L, new BigDecimal("200.00")), new UserAmount(2L, new BigDecimal("60.00"))),
+                List.of(new UserAmount(1L, new BigDecimal("130.00")), new UserAmount(2L, new BigDecimal("130.00"))),
+                List.of(new UserPairAmount(2L, 1L, new BigDecimal("100.00")),
+                        new UserPairAmount(1L, 2L, new BigDecimal("30.00"))),
+                List.of(new GroupUserAmount(7L, 2L, new BigDecimal("60.00"))),
+                List.of(new GroupUserAmount(7L, 1L, new BigDecimal("30.00")),
+                        new GroupUserAmount(7L, 2L, new BigDecimal("30.00")))));
+        when(ledgerService.getNetBalances()).thenReturn(Map.of(1L, new BigDecimal("70.00"), 2L, new BigDecimal("-70.00")));
+        when(ledgerService.getAllEdges()).thenReturn(Map.of(
+                1L, Map.of(2L, new BigDecimal("-70.00")),
+                2L, Map.of(1L, new BigDecimal("70.00"))
+        ));
+        when(ledgerService.getAllGroupBalances()).thenReturn(Map.of(7L, Map.of(
+                1L, new BigDecimal("-30.00"),
+                2L, new BigDecimal("30.00")
+        )));
+        when(userService.newBatchResolver()).thenAnswer(invocation -> new UserBatchResolver(userService));
+
+        LedgerRebuildReport report = balanceService.rebuildLedger(false);
+
+        assertEquals(2, report.getExpensesScanned());
+        assertEquals(2, report.getUsersChecked());
+        assertTrue(report.getDiscrepancies().isEmpty());
+        verify(ledgerService, never()).replaceBalances(anyMap());
+        assertEquals(1, serviceMeterRegistry.timer("expensesync.balance.net", "source", "totals").count());
+    }
+
+    @Test
+    void testReplayLedger_comparesJournalBalancesWithLedger() {
+        when(expenseJournal.replay()).thenReturn(new ExpenseJournal.Replay(Map.of(
+                1L, new BigDecimal("100.00"),
+                2L, new BigDecimal("-100.00")), 50L, 53L, 3L));
+        when(ledgerService.getNetBalances()).thenReturn(Map.of(
+                1L, new BigDecimal("100.00"),
+                2L, new BigDecimal("-40.00")));
+        stubUsers(user(1L, "Krish", "krish@example.com"), user(2L, "Janhvi", "janhvi@example.com"));
+        when(expenseJournal.countEvents()).thenReturn(53L);
+        when(expenseService.countExpenses()).thenReturn(53L);
+
+        LedgerRebuildReport report = balanceService.replayLedger(true);
+
+        assertEquals(3, report.getExpensesScanned());
+        assertEquals(1, report.getDiscrepancies().size());
+        assertEquals("janhvi@example.com", report.getDiscrepancies().get(0).getEmail());
+        verify(ledgerService).replaceBalances(anyMap());
+    }
+
+    @Test
+    void testReplayLedger_refusesRepairWhenJournalIsIncomplete() {
+        when(expenseJournal.countEvents()).thenReturn(2L);
+        when(expenseService.countExpenses()).thenReturn(5L);
+
+        assertThrows(ExpenseSyncException.class, () -> balanceService.replayLedger(true));
+        verify(ledgerService, never()).replaceBalances(anyMap());
+    }
+
+    @Test
+    void testGetSettlementPlan_settlesEachComponentIndependently() {
+        User a = user(1L, "A", "a@example.com");
+        User b = user(2L, "B", "b@example.com");
+        User c = user(3L, "C", "c@example.com");
+        User d = user(4L, "D", "d@example.com");
+
+        when(ledgerService.getUserBalances()).thenReturn(List.of(
+                new UserBalance(a, BigDecimal.valueOf(-40)),
+                new UserBalance(b, BigDecimal.valueOf(-25)),
+                new UserBalance(c, BigDecimal.valueOf(40)),
+                new UserBalance(d, BigDecimal.valueOf(25))
+        ));
+        when(componentIndex.partition(any())).thenReturn(List.of(List.of(1L, 3L), List.of(2L, 4L)));
+        stubUsers(a, b, c, d);
+
+        List<SimplifiedTransaction> plan = balanceService.getSettlementPlan();
+
+        assertEquals(2, plan.size());
+        assertEquals("a@example.com", plan.get(0).getFrom().email());
+        assertEquals("c@example.com", plan.get(0).getTo().email());
+        assertEquals(new BigDecimal("40.00"), plan.get(0).getAmount());
+        assertEquals("b@example.com", plan.get(1).getFrom().email());
+        assertEquals("d@example.com", plan.get(1).getTo().email());
+        assertEquals(new BigDecimal("25.00"), plan.get(1).getAmount());
+    }
+
+    @Test
+    void testGetSimplifiedBalances_settlesEachComponentOnce() {
+        User a = user(1L, "A", "a@example.com");
+        User b = user(2L, "B", "b@example.com");
+        User c = user(3L, "C", "c@example.com");
+
+        when(userService.getUsersByEmail(anySet())).thenReturn(Map.of(
+                "a@example.com", a, "b@example.com", b, "c@example.com", c));
+        when(componentIndex.rootOf(anyLong())).thenReturn(1L);
+        when(componentIndex.componentOf(anyLong())).thenReturn(List.of(1L, 2L, 3L));
+        when(ledgerService.getUserBalances(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new UserBalance(a, BigDecimal.valueOf(-60)),
+                new UserBalance(b, BigDecimal.valueOf(20)),
+                new UserBalance(c, BigDecimal.valueOf(40))
+        ));
+        stubUsers(a, b, c);
+
+        List<SimplifiedBalanceResponse> responses =
+                balanceService.getSimplifiedBalances(List.of("c@example.com", "a@example.com", "b@example.com"));
+
+        assertEquals(List.of("c@example.com", "a@example.com", "b@example.com"),
+                responses.stream().map(response -> response.getUser().email()).toList());
+        assertEquals(0, new BigDecimal("-60").compareTo(responses.get(1).getNetBalance()));
+        assertEquals(2, responses.get(1).getTransactions().size());
+        assertEquals(1, responses.get(2).getTransactions().size());
+        verify(ledgerService, times(1)).getUserBalances(anyList());
+        verify(userService, times(1)).getUsersById(anyCollection());
+    }
+
+    @Test
+    void testGetSimplifiedBalances_rejectsUnknownEmails() {
+        User a = user(1L, "A", "a@example.com");
+        when(userService.getUsersByEmail(anySet())).thenReturn(Map.of("a@example.com", a));
+
+        UserNotFoundException ex = assertThrows(UserNotFoundException.class,
+                () -> balanceService.getSimplifiedBalances(List.of("a@example.com", "x@example.com")));
+
+        assertTrue(ex.getMessage().contains("x@example.com"));
+        verifyNoInteractions(ledgerService);
+    }
+
+    private void stubUsers(User... users) {
+        Map<Long, User> byId = new HashMap<>();
+        for (User user : users) {
+            byId.put(user.getId(), user);
+        }
+        when(userService.newBatchResolver()).thenAnswer(invocation -> new UserBatchResolver(userService));
+        when(userService.getUsersById(anyCollection())).thenReturn(byId);
+    }
+
+    private static User user(Long id, String name, String email) {
+        User user = new User(name, email);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.service;
+
+import org.example.exception.ExpenseSyncException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateWindowTest {
+
+    @Test
+    void testWindow_splitsIntoFullMonthsAndPartialEdges() {
+        DateWindow window = new DateWindow(LocalDate.of(2026, 1, 15), LocalDate.of(2026, 4, 10));
+
+        assertTrue(window.hasFullMonths());
+        assertEquals(LocalDate.of(2026, 2, 1), window.firstFullMonth());
+        assertEquals(LocalDate.of(2026, 4, 1), window.endFullMonth());
+        assertEquals(List.of(
+                new DateWindow.Range(LocalDateTime.of(2026, 1, 15, 0, 0), LocalDateTime.of(2026, 2, 1, 0, 0)),
+                new DateWindow.Range(LocalDateTime.of(2026, 4, 1, 0, 0), LocalDateTime.of(2026, 4, 11, 0, 0))
+        ), window.partialRanges());
+    }
+
+    @Test
+    void testWindow_alignedOnMonthsHasNoPartialEdges() {
+        DateWindow window = new DateWindow(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 31));
+
+        assertEquals(LocalDate.of(2026, 1, 1), window.firstFullMonth());
+        assertEquals(LocalDate.of(2026, 4, 1), window.endFullMonth());
+        assertTrue(window.partialRanges().isEmpty());
+    }
+
+    @Test
+    void testWindow_withinOneMonthIsOnePartialRange() {
+        DateWindow window = new DateWindow(LocalDate.of(2026, 3, 5), LocalDate.of(2026, 4, 10));
+
+        assertFalse(window.hasFullMonths());
+        assertEquals(List.of(new DateWindow.Range(LocalDateTime.of(2026, 3, 5, 0, 0), LocalDateTime.of(2026, 4, 11, 0, 0))),
+                window.partialRanges());
+    }
+
+    @Test
+    void testWindow_asOfDateIsOpenAtTheStart() {
+        DateWindow window = DateWindow.of(null, LocalDate.of(2026, 3, 20));
+
+        assertEquals(DateWindow.FIRST_MONTH, window.firstFullMonth());
+        assertEquals(LocalDate.of(2026, 3, 1), window.endFullMonth());
+        assertEquals(List.of(new DateWindow.Range(LocalDateTime.of(2026, 3, 1, 0, 0), LocalDateTime.of(2026, 3, 21, 0, 0))),
+                window.partialRanges());
+        assertNull(DateWindow.of(null, null));
+        assertThrows(ExpenseSyncException.class, () -> DateWindow.of(LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 1)));
+    }
+}
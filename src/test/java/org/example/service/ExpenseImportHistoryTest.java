@@ -0,0 +1,115 @@
+package org.example.service;
+
+import org.example.dto.CreateUserRequest;
+import org.example.dto.ExpenseImportReport;
+import org.example.dto.ImportFormat;
+import org.example.dto.ImportRowError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Imports expense history into H2 end to end, through the batch validation and the ledger projection.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:import-history;DB_CLOSE_DELAY=-1")
+class ExpenseImportHistoryTest {
+
+    private static final String MISSING_EMAIL = "Paid by email and every participant email are required.";
+
+    @Autowired
+    private ExpenseImportService importService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerProjector ledgerProjector;
+
+    private String krish;
+    private String janhvi;
+
+    @BeforeEach
+    void setup() {
+        String run = Long.toString(System.nanoTime());
+        krish = "krish-" + run + "@example.com";
+        janhvi = "janhvi-" + run + "@example.com";
+        userService.createUser(new CreateUserRequest("Krish " + run, krish));
+        userService.createUser(new CreateUserRequest("Janhvi " + run, janhvi));
+    }
+
+    @Test
+    void testImport_rowWithoutPayerFailsAlone() {
+        String ndjson = String.join("\n",
+                row("Dinner", 100, krish),
+                row("Cab", 40, null),
+                row("Tea", 10, janhvi));
+        String csv = String.join("\n",
+                "description,amount,paidByEmail,splitType,participants",
+                "Dinner,100," + krish + ",EQUAL," + krish + ";" + janhvi,
+                "Cab,40,,EQUAL," + krish + ";" + janhvi,
+                "Tea,10," + janhvi + ",EQUAL," + krish + ";" + janhvi);
+
+        ExpenseImportReport fromNdjson = importService.importExpenses(stream(ndjson), ImportFormat.NDJSON);
+        ExpenseImportReport fromCsv = importService.importExpenses(stream(csv), ImportFormat.CSV);
+
+        assertEquals(2, fromNdjson.getCreated());
+        assertEquals(List.of(new ImportRowError(2, MISSING_EMAIL)), fromNdjson.getErrors());
+        assertEquals(2, fromCsv.getCreated());
+        assertEquals(List.of(new ImportRowError(3, MISSING_EMAIL)), fromCsv.getErrors());
+    }
+
+    @Test
+    void testImport_backDatedRowLandsInItsRollupMonth() {
+        LocalDateTime future = LocalDateTime.now().plusDays(2).withNano(0);
+        String csv = String.join("\n",
+                "description,amount,paidByEmail,splitType,participants,createdAt",
+                "Dinner,100," + krish + ",EQUAL," + krish + ";" + janhvi + ",2024-03-15T19:30:00",
+                "Cab,40," + krish + ",EQUAL," + krish + ";" + janhvi + "," + future,
+                "Tea,10," + krish + ",EQUAL," + krish + ";" + janhvi + ",yesterday");
+
+        ExpenseImportReport report = importService.importExpenses(stream(csv), ImportFormat.CSV);
+        ledgerProjector.awaitVisible(report.getLedgerToken());
+
+        assertEquals(1, report.getCreated());
+        Map<Long, String> errors = report.getErrors().stream()
+                .collect(Collectors.toMap(ImportRowError::getLine, ImportRowError::getError));
+        assertEquals(Set.of(3L, 4L), errors.keySet());
+        assertEquals("Created at must not be in the future.", errors.get(3L));
+
+        Long krishId = userService.getUserByEmail(krish).getId();
+        Long janhviId = userService.getUserByEmail(janhvi).getId();
+        LocalDate march = LocalDate.of(2024, 3, 1);
+        assertEquals(Map.of(krishId, new BigDecimal("50.00"), janhviId, new BigDecimal("-50.00")),
+                ledgerService.getMonthlyBalances(List.of(krishId, janhviId), march, march.plusMonths(1)));
+        assertEquals(Map.of(), ledgerService.getMonthlyBalances(List.of(krishId, janhviId), march.plusMonths(1),
+                DateWindow.LAST_MONTH));
+    }
+
+    private String row(String description, int amount, String payer) {
+        return "{\"description\":\"" + description + "\",\"amount\":" + amount
+                + (payer == null ? "" : ",\"paidByEmail\":\"" + payer + "\"")
+                + ",\"splitType\":\"EQUAL\",\"participants\":[{\"email\":\"" + krish + "\"},{\"email\":\"" + janhvi + "\"}]}";
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.service;
+
+import org.example.dto.BatchExpenseResponse;
+import org.example.dto.BatchExpenseResult;
+import org.example.dto.BatchItemStatus;
+import org.example.dto.CreateExpenseRequest;
+import org.example.dto.ExpenseImportReport;
+import org.example.dto.ImportFormat;
+import org.example.dto.SplitType;
+import org.example.exception.ExpenseSyncException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ExpenseImportServiceTest {
+
+    @Mock
+    private ExpenseService expenseService;
+
+    private ExpenseImportService importService;
+    private final AtomicInteger chunksCreated = new AtomicInteger();
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        importService = new ExpenseImportService(expenseService, Jackson2ObjectMapperBuilder.json().build(), 2, 10);
+        when(expenseService.createExpenses(anyList())).thenAnswer(invocation -> allCreated(invocation.getArgument(0)));
+    }
+
+    @Test
+    void testImportNdjson_persistsInChunksAndReportsMalformedRows() {
+        String row = "{\"description\":\"Dinner\",\"amount\":90,\"paidByEmail\":\"krish@example.com\",\"splitType\":\"EQUAL\","
+                + "\"participants\":[{\"email\":\"krish@example.com\"},{\"email\":\"janhvi@example.com\"}]}";
+        String body = String.join("\n", row, row, "{not json", "", row, row, row);
+
+        ExpenseImportReport report = importService.importExpenses(stream(body), ImportFormat.NDJSON);
+
+        assertEquals(6, report.getRowsRead());
+        assertEquals(5, report.getCreated());
+        assertEquals(1, report.getFailed());
+        assertEquals(3, report.getChunks());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertFalse(report.isErrorsTruncated());
+        assertEquals("epoch-3", report.getLedgerToken());
+        verify(expenseService, times(3)).createExpenses(anyList());
+    }
+
+    @Test
+    void testImportCsv_parsesParticipantsAndMapsFailuresToLines() {
+        String body = String.join("\n",
+                "description,amount,paidByEmail,splitType,participants",
+                "\"Dinner, late\",900,janhvi@example.com,exact,krish@example.com:300;janhvi@example.com:600",
+                "Cab,abc,janhvi@example.com,EQUAL,krish@example.com",
+                "Taxi,50,krish@example.com,EQUAL,krish@example.com;ghost@example.com");
+
+        when(expenseService.createExpenses(anyList())).thenAnswer(invocation -> {
+            List<CreateExpenseRequest> chunk = invocation.getArgument(0);
+            List<BatchExpenseResult> results = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                boolean ghost = chunk.get(i).getParticipants().stream().anyMatch(p -> p.getEmail().startsWith("ghost"));
+                results.add(ghost
+                        ? new BatchExpenseResult(i, BatchItemStatus.FAILED, null, "All emails must be valid.")
+                        : new BatchExpenseResult(i, BatchItemStatus.CREATED, null, null));
+            }
+            int failed = (int) results.stream().filter(r -> r.getStatus() == BatchItemStatus.FAILED).count();
+            return new BatchExpenseResponse(chunk.size() - failed, failed, results, null);
+        });
+
+        ExpenseImportReport report = importService.importExpenses(stream(body), ImportFormat.CSV);
+
+        ArgumentCaptor<List<CreateExpenseRequest>> chunk = ArgumentCaptor.forClass(List.class);
+        verify(expenseService).createExpenses(chunk.capture());
+        CreateExpenseRequest first = chunk.getValue().get(0);
+        assertEquals("Dinner, late", first.getDescription());
+        assertEquals(SplitType.EXACT, first.getSplitType());
+        assertEquals(0, BigDecimal.valueOf(600).compareTo(first.getParticipants().get(1).getShare()));
+
+        assertEquals(3, report.getRowsRead());
+        assertEquals(1, report.getCreated());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(3L, 4L), report.getErrors().stream().map(e -> e.getLine()).toList());
+    }
+
+    @Test
+    void testImportCsv_missingColumns_throwsException() {
+        assertThrows(ExpenseSyncException.class,
+                () -> importService.importExpenses(stream("description,amount\nDinner,10"), ImportFormat.CSV));
+        verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    void testImport_capsReportedErrors() {
+        importService = new ExpenseImportService(expenseService, Jackson2ObjectMapperBuilder.json().build(), 2, 3);
+
+        ExpenseImportReport report = importService.importExpenses(stream("x\nx\nx\nx\nx"), ImportFormat.NDJSON);
+
+        assertEquals(5, report.getFailed());
+        assertEquals(3, report.getErrors().size());
+        assertTrue(report.isErrorsTruncated());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private BatchExpenseResponse allCreated(List<CreateExpenseRequest> chunk) {
+        List<BatchExpenseResult> results = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            results.add(new BatchExpenseResult(i, BatchItemStatus.CREATED, null, null));
+        }
+        return new BatchExpenseResponse(chunk.size(), 0, results, "epoch-" + chunksCreated.incrementAndGet());
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.model.BalanceSnapshot;
+import org.example.model.ExpenseRecorded;
+import org.example.repository.BalanceSnapshotRepository;
+import org.example.repository.ExpenseJournalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExpenseJournalTest {
+
+    private static final Long KRISH = 1L;
+    private static final Long JANHVI = 2L;
+    private static final Long HARSH = 3L;
+
+    @Mock
+    private ExpenseJournalRepository journalRepository;
+
+    @Mock
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ExpenseJournal expenseJournal;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        expenseJournal = new ExpenseJournal(journalRepository, snapshotRepository, entityManager, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testTakeSnapshot_replaysOnlyTheTailAfterTheLatestSnapshot() {
+        BalanceSnapshot latest = new BalanceSnapshot(50L, Map.of(
+                KRISH, new BigDecimal("10.00"),
+                JANHVI, new BigDecimal("-10.00")), null);
+        when(snapshotRepository.findFirstByOrderBySequenceDesc()).thenReturn(Optional.of(latest));
+        when(journalRepository.findLastSequenceRecordedBefore(any())).thenReturn(Optional.of(52L));
+        List<ExpenseRecorded> tail = List.of(
+                event(51L, JANHVI, "100.00", KRISH, JANHVI, HARSH),
+                event(52L, KRISH, "0.05", KRISH, HARSH));
+        when(journalRepository.findRange(eq(50L), eq(52L), any())).thenReturn(tail);
+        when(snapshotRepository.save(any(BalanceSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BalanceSnapshot snapshot = expenseJournal.takeSnapshot().orElseThrow();
+
+        assertEquals(52L, snapshot.getSequence());
+        assertEquals(new BigDecimal("-23.31"), snapshot.getBalances().get(KRISH));
+        assertEquals(new BigDecimal("56.67"), snapshot.getBalances().get(JANHVI));
+        assertEquals(new BigDecimal("-33.36"), snapshot.getBalances().get(HARSH));
+        verify(journalRepository, never()).findRange(eq(0L), anyLong(), any());
+        verify(snapshotRepository).deleteAllBySequenceLessThan(52L);
+    }
+
+    @Test
+    void testTakeSnapshot_skipsWhenNoNewEventIsOldEnough() {
+        when(snapshotRepository.findFirstByOrderBySequenceDesc()).thenReturn(Optional.of(new BalanceSnapshot(50L, Map.of(), null)));
+        when(journalRepository.findLastSequenceRecordedBefore(any())).thenReturn(Optional.of(50L));
+
+        assertTrue(expenseJournal.takeSnapshot().isEmpty());
+        verify(journalRepository, never()).findRange(anyLong(), anyLong(), any());
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void testReplay_withoutSnapshot_appliesTheWholeJournal() {
+        when(snapshotRepository.findFirstByOrderBySequenceDesc()).thenReturn(Optional.empty());
+        List<ExpenseRecorded> journal = List.of(
+                event(1L, KRISH, "30.00", KRISH, JANHVI),
+                event(51L, JANHVI, "10.00", KRISH, JANHVI));
+        when(journalRepository.findRange(eq(0L), eq(Long.MAX_VALUE), any())).thenReturn(journal);
+
+        ExpenseJournal.Replay replay = expenseJournal.replay();
+
+        assertEquals(0L, replay.snapshotSequence());
+        assertEquals(51L, replay.lastSequence());
+        assertEquals(2L, replay.eventsReplayed());
+        assertEquals(new BigDecimal("10.00"), replay.balances().get(KRISH));
+        assertEquals(new BigDecimal("-10.00"), replay.balances().get(JANHVI));
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void testReplay_readsTheJournalInChunks() {
+        when(snapshotRepository.findFirstByOrderBySequenceDesc()).thenReturn(Optional.empty());
+        List<ExpenseRecorded> fullChunk = new ArrayList<>();
+        for (long sequence = 1; sequence <= 1000; sequence++) {
+            fullChunk.add(event(sequence, KRISH, "2.00", KRISH, JANHVI));
+        }
+        when(journalRepository.findRange(eq(0L), anyLong(), any())).thenReturn(fullChunk);
+        when(journalRepository.findRange(eq(1000L), anyLong(), any())).thenReturn(List.of());
+
+        ExpenseJournal.Replay replay = expenseJournal.replay();
+
+        assertEquals(1000L, replay.eventsReplayed());
+        assertEquals(new BigDecimal("1000.00"), replay.balances().get(KRISH));
+        ArgumentCaptor<Long> after = ArgumentCaptor.forClass(Long.class);
+        verify(journalRepository, times(2)).findRange(after.capture(), anyLong(), any());
+        assertEquals(List.of(0L, 1000L), after.getAllValues());
+    }
+
+    private static ExpenseRecorded event(long sequence, Long payer, String amount, Long... participants) {
+        ExpenseRecorded event = mock(ExpenseRecorded.class);
+        when(event.getSequence()).thenReturn(sequence);
+        when(event.getPaidById()).thenReturn(payer);
+        when(event.getAmount()).thenReturn(new BigDecimal(amount));
+        when(event.getParticipantIds()).thenReturn(List.of(participants));
+        return event;
+    }
+}
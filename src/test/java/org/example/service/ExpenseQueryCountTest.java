@@ -0,0 +1,142 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.dto.CreateExpenseRequest;
+import org.example.dto.CreateUserRequest;
+import org.example.dto.ExpensePage;
+import org.example.dto.ExpenseTotals;
+import org.example.dto.ParticipantDTO;
+import org.example.dto.SplitType;
+import org.example.dto.UserAmount;
+import org.example.dto.UserExpenseSummary;
+import org.example.metrics.RequestStatistics;
+import org.example.model.Expense;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Locks in the number of SQL statements the expense listings and totals issue, whatever the number of expenses and participants.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:query-count;DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.hibernate.generate_statistics=true",
+                "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+        })
+class ExpenseQueryCountTest {
+
+    private static final int USERS = 6;
+    private static final int EXPENSES = 20;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LedgerProjector ledgerProjector;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String email;
+    private Long userId;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        String run = Long.toString(System.nanoTime());
+        List<ParticipantDTO> participants = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            String userEmail = "user" + i + "-" + run + "@example.com";
+            userService.createUser(new CreateUserRequest("User " + i + " " + run, userEmail));
+            participants.add(new ParticipantDTO(userEmail, null));
+        }
+        email = participants.get(0).getEmail();
+        userId = userService.getUserByEmail(email).getId();
+
+        for (int i = 0; i < EXPENSES; i++) {
+            expenseService.createExpense(CreateExpenseRequest.builder()
+                    .description("Expense " + i)
+                    .amount(BigDecimal.valueOf(60))
+                    .paidByEmail(participants.get(i % USERS).getEmail())
+                    .splitType(SplitType.EQUAL)
+                    .participants(participants)
+                    .build());
+        }
+        // Ledger projections run in the background and would otherwise be counted with the statements under test.
+        assertTrue(ledgerProjector.awaitIdle());
+        statistics.clear();
+    }
+
+    @Test
+    void testSummary_withoutParticipants_usesOneQuery() {
+        UserExpenseSummary summary = expenseService.getExpensesByUserEmail(email, false);
+
+        assertEquals(EXPENSES, summary.getExpenses().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testSummary_withParticipants_usesTwoQueries() {
+        UserExpenseSummary summary = expenseService.getExpensesByUserEmail(email, true);
+
+        assertEquals(USERS, summary.getExpenses().get(0).getParticipants().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testPage_withParticipants_usesTwoQueries() {
+        ExpensePage page = expenseService.getExpensePageByUserEmail(email, 10, null, true);
+
+        assertEquals(10, page.getExpenses().size());
+        assertEquals(USERS, page.getExpenses().get(9).getParticipants().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testExpenseTotals_sumsInTheDatabaseWithoutLoadingExpenses() {
+        ExpenseTotals totals = expenseService.getExpenseTotals();
+
+        assertEquals(0, new BigDecimal("240.00").compareTo(amountOf(totals.paid(), userId)));
+        assertEquals(0, new BigDecimal("200.00").compareTo(amountOf(totals.owed(), userId)));
+        assertEquals(0, statistics.getEntityStatistics(Expense.class.getName()).getLoadCount());
+        assertEquals(6, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testRequestStatistics_countOnlyTheCurrentThread() throws InterruptedException {
+        RequestStatistics.Counts counts = RequestStatistics.begin();
+        try {
+            expenseService.getExpensePageByUserEmail(email, 10, null, true);
+            Thread other = new Thread(() -> expenseService.getExpensesByUserEmail(email, true));
+            other.start();
+            other.join();
+        } finally {
+            RequestStatistics.end();
+        }
+
+        assertEquals(2, counts.statements());
+        assertEquals(2, counts.queries());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    private static BigDecimal amountOf(List<UserAmount> rows, Long userId) {
+        return rows.stream().filter(row -> row.userId().equals(userId)).findFirst().orElseThrow().amount();
+    }
+}
@@ -1,27 +1,39 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.example.dto.*;
 import org.example.exception.ExpenseSyncException;
 import org.example.model.Expense;
 import org.example.model.ExpenseParticipant;
 import org.example.model.User;
+import org.example.repository.ExpenseParticipantRepository;
 import org.example.repository.ExpenseRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ExpenseServiceTest {
@@ -32,6 +44,27 @@ class ExpenseServiceTest {
     @Mock
     private ExpenseRepository expenseRepository;
 
+    @Mock
+    private ExpenseParticipantRepository participantRepository;
+
+    @Mock
+    private LedgerProjector ledgerProjector;
+
+    @Mock
+    private GroupService groupService;
+
+    @Mock
+    private ExpenseJournal expenseJournal;
+
+    @Mock
+    private UserVersions userVersions;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private ExpenseService expenseService;
 
@@ -43,8 +76,11 @@ class ExpenseServiceTest {
     @Test
     void testCreateExpense_withEqualSplit_success() {
         User payer = new User("krish", "krish@example.com");
+        payer.setId(1L);
         User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
         User harsh = new User("Harsh", "harsh@example.com");
+        harsh.setId(3L);
 
         List<ParticipantDTO> participants = Arrays.asList(
                 new ParticipantDTO("krish@example.com", null),
@@ -64,7 +100,12 @@ class ExpenseServiceTest {
 
         when(userService.getUserByEmail("krish@example.com")).thenReturn(payer);
         when(userService.getAllUsersByEmail(anySet())).thenReturn(users);
-        when(expenseRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(expenseRepository.save(any())).thenAnswer(invocation -> {
+            Expense expense = invocation.getArgument(0);
+            expense.setId(42L);
+            return expense;
+        });
+        when(ledgerProjector.publish(List.of(42L))).thenReturn("epoch-1");
 
         CreateExpenseResponse response = expenseService.createExpense(request);
 
@@ -73,6 +114,44 @@ class ExpenseServiceTest {
         assertEquals(BigDecimal.valueOf(1500), response.getAmount());
         assertEquals("krish@example.com", response.getPaidBy().get("email"));
         assertEquals(3, response.getParticipants().size());
+        assertEquals("epoch-1", response.getLedgerToken());
+        verify(ledgerProjector).publish(List.of(42L));
+        verify(userVersions).bump(Set.of(1L, 2L, 3L));
+        verify(expenseJournal).append(argThat(expenses -> expenses.size() == 1));
+    }
+
+    @Test
+    void testCreateExpense_keepsThePastCreatedAtAndRejectsAFutureOne() {
+        User payer = new User("krish", "krish@example.com");
+        payer.setId(1L);
+        User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
+        LocalDateTime lastMonth = LocalDateTime.now().minusMonths(1);
+
+        CreateExpenseRequest request = CreateExpenseRequest.builder()
+                .description("Dinner")
+                .amount(BigDecimal.valueOf(1000))
+                .paidByEmail("krish@example.com")
+                .splitType(SplitType.EQUAL)
+                .participants(List.of(new ParticipantDTO("krish@example.com", null), new ParticipantDTO("janhvi@example.com", null)))
+                .createdAt(lastMonth)
+                .build();
+
+        when(userService.getUserByEmail("krish@example.com")).thenReturn(payer);
+        when(userService.getAllUsersByEmail(anySet())).thenReturn(Set.of(payer, janhvi));
+        when(expenseRepository.save(any())).thenAnswer(invocation -> {
+            Expense expense = invocation.getArgument(0);
+            expense.setId(42L);
+            return expense;
+        });
+
+        CreateExpenseResponse response = expenseService.createExpense(request);
+
+        assertEquals(lastMonth, response.getCreatedAt());
+        verify(expenseRepository).save(argThat(expense -> lastMonth.equals(expense.getCreatedAt())));
+
+        request.setCreatedAt(LocalDateTime.now().plusDays(1));
+        assertThrows(ExpenseSyncException.class, () -> expenseService.createExpense(request));
     }
 
     @Test
@@ -121,31 +200,181 @@ class ExpenseServiceTest {
         assertThrows(ExpenseSyncException.class, () -> expenseService.createExpense(request));
     }
 
+    @Test
+    void testCreateExpenses_createsValidItemsAndReportsFailures() {
+        User krish = new User("Krish", "krish@example.com");
+        krish.setId(1L);
+        User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
+
+        CreateExpenseRequest valid = CreateExpenseRequest.builder()
+                .description("Dinner")
+                .amount(BigDecimal.valueOf(100))
+                .paidByEmail("krish@example.com")
+                .splitType(SplitType.EQUAL)
+                .participants(List.of(new ParticipantDTO("krish@example.com", null), new ParticipantDTO("janhvi@example.com", null)))
+                .build();
+        CreateExpenseRequest unknownUser = CreateExpenseRequest.builder()
+                .description("Cab")
+                .amount(BigDecimal.valueOf(50))
+                .paidByEmail("krish@example.com")
+                .splitType(SplitType.EQUAL)
+                .participants(List.of(new ParticipantDTO("krish@example.com", null), new ParticipantDTO("ghost@example.com", null)))
+                .build();
+
+        when(userService.getUsersByEmail(anySet())).thenReturn(Map.of(
+                "krish@example.com", krish,
+                "janhvi@example.com", janhvi
+        ));
+
+        BatchExpenseResponse response = expenseService.createExpenses(List.of(valid, unknownUser, valid));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(1, response.getFailed());
+        assertEquals(BatchItemStatus.CREATED, response.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.FAILED, response.getResults().get(1).getStatus());
+        assertEquals("All emails must be valid.", response.getResults().get(1).getError());
+        assertEquals(2, response.getResults().get(2).getIndex());
+        assertEquals(2, response.getResults().get(2).getExpense().getParticipants().size());
+
+        verify(userService, times(1)).getUsersByEmail(anySet());
+        verify(expenseRepository).saveAll(argThat(expenses -> ((List<Expense>) expenses).size() == 2));
+        verify(ledgerProjector).publish(argThat(ids -> ids.size() == 2));
+        verify(expenseJournal).append(argThat(expenses -> expenses.size() == 2));
+    }
+
+    @Test
+    void testCreateExpenses_itemsMissingEmailsFailWithoutFailingTheBatch() {
+        User krish = new User("Krish", "krish@example.com");
+        krish.setId(1L);
+        User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
+
+        CreateExpenseRequest valid = CreateExpenseRequest.builder()
+                .description("Dinner")
+                .amount(BigDecimal.valueOf(100))
+                .paidByEmail("krish@example.com")
+                .splitType(SplitType.EQUAL)
+                .participants(List.of(new ParticipantDTO("krish@example.com", null), new ParticipantDTO("janhvi@example.com", null)))
+                .build();
+        CreateExpenseRequest noPayer = CreateExpenseRequest.builder()
+                .description("Cab")
+                .amount(BigDecimal.valueOf(50))
+                .splitType(SplitType.EQUAL)
+                .participants(List.of(new ParticipantDTO("krish@example.com", null), new ParticipantDTO("janhvi@example.com", null)))
+                .build();
+        CreateExpenseRequest noParticipantEmail = CreateExpenseRequest.builder()
+                .description("Tea")
+                .amount(BigDecimal.valueOf(20))
+                .paidByEmail("krish@example.com")
+                .splitType(SplitType.EQUAL)
+                .participants(List.of(new ParticipantDTO("krish@example.com", null), new ParticipantDTO(null, null)))
+                .build();
+
+        when(userService.getUsersByEmail(anySet())).thenReturn(Map.of(
+                "krish@example.com", krish,
+                "janhvi@example.com", janhvi
+        ));
+
+        BatchExpenseResponse response = expenseService.createExpenses(List.of(noPayer, valid, noParticipantEmail));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getFailed());
+        assertEquals(BatchItemStatus.FAILED, response.getResults().get(0).getStatus());
+        assertEquals("Paid by email and every participant email are required.", response.getResults().get(0).getError());
+        assertEquals(BatchItemStatus.CREATED, response.getResults().get(1).getStatus());
+        assertEquals(BatchItemStatus.FAILED, response.getResults().get(2).getStatus());
+        verify(userService).getUsersByEmail(argThat(emails -> !emails.contains(null)));
+    }
+
     @Test
     void testGetExpensesByUserEmail_returnsCorrectSummary() {
         String email = "krish@example.com";
         User krish = new User("Krish", email);
-        Expense expense = new Expense();
-        expense.setId(1L);
-        expense.setDescription("Dinner");
-        expense.setAmount(BigDecimal.valueOf(900));
-        expense.setCreatedAt(LocalDateTime.now());
-        expense.setPaidBy(krish);
-
-        ExpenseParticipant ep = new ExpenseParticipant();
-        ep.setUser(krish);
-        ep.setExpense(expense);
-        ep.setShareAmount(BigDecimal.valueOf(300));
-
-        expense.setParticipants(List.of(ep));
+        UserExpenseRow row = new UserExpenseRow(1L, "Dinner", BigDecimal.valueOf(900), LocalDateTime.now(),
+                "Krish", email, BigDecimal.valueOf(300));
 
         when(userService.getUserByEmail(email)).thenReturn(krish);
-        when(expenseRepository.findAllByParticipantsUserEmail(email)).thenReturn(List.of(expense));
+        when(participantRepository.findExpenseRowsByUserEmail(email)).thenReturn(List.of(row));
+        when(participantRepository.findParticipantRowsOfUserExpenses(email)).thenReturn(List.of(
+                new ParticipantShareRow(1L, "Krish", email, BigDecimal.valueOf(300)),
+                new ParticipantShareRow(1L, "Janhvi", "janhvi@example.com", BigDecimal.valueOf(600))
+        ));
 
         UserExpenseSummary summary = expenseService.getExpensesByUserEmail(email, true);
 
         assertNotNull(summary);
         assertEquals(1, summary.getExpenses().size());
         assertEquals(BigDecimal.valueOf(600), summary.getNetBalance());
+
+        List<ParticipantBreakdownDTO> participants = summary.getExpenses().get(0).getParticipants();
+        assertEquals(2, participants.size());
+        assertEquals(BigDecimal.valueOf(600), participants.get(0).getAmountToReceive());
+        assertEquals(BigDecimal.valueOf(600), participants.get(1).getAmountOwed());
+    }
+
+    @Test
+    void testGetExpensesByUserEmail_withoutParticipants_skipsBreakdownQuery() {
+        String email = "krish@example.com";
+        when(userService.getUserByEmail(email)).thenReturn(new User("Krish", email));
+        when(participantRepository.findExpenseRowsByUserEmail(email)).thenReturn(List.of());
+
+        UserExpenseSummary summary = expenseService.getExpensesByUserEmail(email, false);
+
+        assertEquals(BigDecimal.ZERO, summary.getNetBalance());
+        verify(participantRepository, never()).findParticipantRowsOfUserExpenses(anyString());
+    }
+
+    @Test
+    void testGetExpensePage_returnsCursorUntilLastPage() {
+        String email = "krish@example.com";
+        User krish = new User("Krish", email);
+        User janhvi = new User("Janhvi", "janhvi@example.com");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        List<ExpenseParticipant> rows = List.of(
+                ownRow(1L, start, krish, krish, BigDecimal.valueOf(90), BigDecimal.valueOf(30)),
+                ownRow(2L, start, janhvi, krish, BigDecimal.valueOf(60), BigDecimal.valueOf(20)),
+                ownRow(3L, start.plusMinutes(1), krish, krish, BigDecimal.valueOf(10), BigDecimal.valueOf(5))
+        );
+
+        when(userService.getUserByEmail(email)).thenReturn(krish);
+        when(participantRepository.findFirstPageByUserEmail(eq(email), any())).thenReturn(rows);
+        when(participantRepository.findPageByUserEmailAfter(email, start, 2L, Limit.of(3))).thenReturn(rows.subList(2, 3));
+
+        ExpensePage first = expenseService.getExpensePageByUserEmail(email, 2, null, false);
+
+        assertEquals(2, first.getExpenses().size());
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(first.getExpenses().get(0).getNetTransactionBalance()));
+        assertEquals(0, BigDecimal.valueOf(-20).compareTo(first.getExpenses().get(1).getNetTransactionBalance()));
+        assertNotNull(first.getNextCursor());
+
+        ExpensePage second = expenseService.getExpensePageByUserEmail(email, 2, first.getNextCursor(), false);
+
+        assertEquals(1, second.getExpenses().size());
+        assertEquals(3L, second.getExpenses().get(0).getId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetExpensePage_invalidCursorOrLimit_throwsException() {
+        when(userService.getUserByEmail("krish@example.com")).thenReturn(new User("Krish", "krish@example.com"));
+
+        assertThrows(ExpenseSyncException.class, () -> expenseService.getExpensePageByUserEmail("krish@example.com", 0, null, false));
+        assertThrows(ExpenseSyncException.class, () -> expenseService.getExpensePageByUserEmail("krish@example.com", 10, "not-a-cursor", false));
+    }
+
+    private ExpenseParticipant ownRow(Long id, LocalDateTime createdAt, User payer, User user, BigDecimal amount, BigDecimal share) {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setCreatedAt(createdAt);
+        expense.setAmount(amount);
+        expense.setPaidBy(payer);
+
+        ExpenseParticipant participant = new ExpenseParticipant();
+        participant.setExpense(expense);
+        participant.setUser(user);
+        participant.setShareAmount(share);
+        return participant;
     }
 }
@@ -0,0 +1,96 @@
+package org.example.service;
+
+import org.example.dto.CreateGroupRequest;
+import org.example.dto.GroupResponse;
+import org.example.exception.ExpenseSyncException;
+import org.example.exception.GroupNotFoundException;
+import org.example.model.ExpenseGroup;
+import org.example.model.User;
+import org.example.repository.ExpenseGroupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GroupServiceTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ExpenseGroupRepository groupRepository;
+
+    @InjectMocks
+    private GroupService groupService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testCreateGroup_success() {
+        User krish = user(1L, "Krish", "krish@example.com");
+        User janhvi = user(2L, "Janhvi", "janhvi@example.com");
+
+        CreateGroupRequest request = new CreateGroupRequest("Trip", List.of("krish@example.com", "janhvi@example.com"));
+
+        when(userService.getAllUsersByEmail(anySet())).thenReturn(Set.of(krish, janhvi));
+        when(groupRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        GroupResponse response = groupService.createGroup(request);
+
+        assertEquals("Trip", response.getName());
+        assertEquals(2, response.getMembers().size());
+        assertEquals("janhvi@example.com", response.getMembers().get(0).getEmail());
+    }
+
+    @Test
+    void testCreateGroup_unknownMember_throwsException() {
+        User krish = user(1L, "Krish", "krish@example.com");
+
+        CreateGroupRequest request = new CreateGroupRequest("Trip", List.of("krish@example.com", "ghost@example.com"));
+
+        when(userService.getAllUsersByEmail(anySet())).thenReturn(Set.of(krish));
+
+        assertThrows(ExpenseSyncException.class, () -> groupService.createGroup(request));
+        verify(groupRepository, never()).save(any());
+    }
+
+    @Test
+    void testGetGroup_notFound_throwsException() {
+        when(groupRepository.findById(42L)).thenReturn(Optional.empty());
+
+        assertThrows(GroupNotFoundException.class, () -> groupService.getGroup(42L));
+    }
+
+    @Test
+    void testValidateMembers_nonMember_throwsException() {
+        User krish = user(1L, "Krish", "krish@example.com");
+        User harsh = user(3L, "Harsh", "harsh@example.com");
+
+        ExpenseGroup group = new ExpenseGroup();
+        group.getMembers().add(krish);
+
+        assertDoesNotThrow(() -> groupService.validateMembers(group, List.of(krish)));
+        assertThrows(ExpenseSyncException.class, () -> groupService.validateMembers(group, List.of(krish, harsh)));
+    }
+
+    private User user(Long id, String name, String email) {
+        User user = new User(name, email);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.example.exception.ExpenseSyncException;
+import org.example.exception.LedgerNotCaughtUpException;
+import org.example.model.Expense;
+import org.example.repository.ExpenseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LedgerProjectorTest {
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private ExpenseFactStore factStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry registry;
+    private LedgerProjector projector;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        registry = new SimpleMeterRegistry();
+        projector = new LedgerProjector(expenseRepository, ledgerService, factStore, eventPublisher, entityManager, transactionManager,
+                registry, 100, 50, Duration.ofMillis(500), Duration.ofMillis(50));
+        projector.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        projector.stop();
+    }
+
+    @Test
+    void testAwaitVisible_returnsOnceTheCommittedExpensesAreApplied() {
+        List<Expense> expenses = List.of(new Expense());
+        when(expenseRepository.findAllWithParticipantsByIdIn(List.of(1L, 2L))).thenReturn(expenses);
+
+        String token = projector.publish(List.of(1L, 2L));
+        projector.onCommit(lastEvent());
+
+        projector.awaitVisible(token);
+        verify(ledgerService).recordExpenses(expenses);
+        verify(factStore).append(expenses);
+    }
+
+    @Test
+    void testAwaitVisible_rolledBackWriteDoesNotHoldBackLaterOnes() {
+        projector.publish(List.of(1L));
+        ExpensesCreatedEvent rolledBack = lastEvent();
+        String token = projector.publish(List.of(2L));
+        ExpensesCreatedEvent committed = lastEvent();
+
+        projector.onCommit(committed);
+        projector.onRollback(rolledBack);
+
+        projector.awaitVisible(token);
+        verify(expenseRepository, never()).findAllWithParticipantsByIdIn(List.of(1L));
+    }
+
+    @Test
+    void testAwaitVisible_failedProjectionStaysPendingUntilARetryAppliesIt() {
+        List<Expense> expenses = List.of(new Expense());
+        AtomicBoolean broken = new AtomicBoolean(true);
+        // Also fails a batch holding both events, so the failing one is set aside on its own.
+        when(expenseRepository.findAllWithParticipantsByIdIn(argThat(ids -> ids.contains(1L)))).thenAnswer(invocation -> {
+            if (broken.get()) {
+                throw new IllegalStateException("boom");
+            }
+            return expenses;
+        });
+
+        String failing = projector.publish(List.of(1L));
+        projector.onCommit(lastEvent());
+        String later = projector.publish(List.of(2L));
+        projector.onCommit(lastEvent());
+
+        projector.awaitVisible(later);
+        assertThrows(LedgerNotCaughtUpException.class, () -> projector.awaitVisible(failing));
+        assertTrue(projector.awaitIdle());
+        assertTrue(projector.hasFailedProjections());
+        assertEquals(1.0, registry.counter("expensesync.ledger.projection.failures").count());
+        assertEquals(1.0, registry.get("expensesync.ledger.projection.failed").gauge().value());
+
+        broken.set(false);
+
+        projector.awaitVisible(failing);
+        verify(ledgerService).recordExpenses(expenses);
+        verify(factStore).append(expenses);
+        verify(factStore, never()).invalidate();
+        assertFalse(projector.hasFailedProjections());
+    }
+
+    @Test
+    void testRepairing_dropsTheFailedProjectionsTheRebuildApplied() {
+        when(expenseRepository.findAllWithParticipantsByIdIn(List.of(1L))).thenThrow(new IllegalStateException("boom"));
+
+        String failing = projector.publish(List.of(1L));
+        projector.onCommit(lastEvent());
+        assertTrue(projector.awaitIdle());
+
+        assertEquals("repaired", projector.repairing(() -> "repaired"));
+
+        projector.awaitVisible(failing);
+        assertFalse(projector.hasFailedProjections());
+        verify(ledgerService, never()).recordExpenses(anyList());
+    }
+
+    @Test
+    void testAwaitVisible_throwsWhenTheWriteIsStillPending() {
+        String token = projector.publish(List.of(1L));
+
+        assertThrows(LedgerNotCaughtUpException.class, () -> projector.awaitVisible(token));
+        assertFalse(projector.awaitIdle());
+    }
+
+    @Test
+    void testAwaitVisible_validatesTokens() {
+        projector.awaitVisible(null);
+        projector.awaitVisible("previousboot-7");
+
+        assertThrows(ExpenseSyncException.class, () -> projector.awaitVisible("not-a-token"));
+        assertThrows(ExpenseSyncException.class, () -> projector.awaitVisible("12"));
+
+        String token = projector.publish(List.of(1L));
+        String unseen = token.substring(0, token.lastIndexOf('-')) + "-99";
+        assertThrows(ExpenseSyncException.class, () -> projector.awaitVisible(unseen));
+    }
+
+    private ExpensesCreatedEvent lastEvent() {
+        ArgumentCaptor<ExpensesCreatedEvent> event = ArgumentCaptor.forClass(ExpensesCreatedEvent.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(event.capture());
+        return event.getValue();
+    }
+}
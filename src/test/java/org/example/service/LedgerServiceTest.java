@@ -0,0 +1,220 @@
+package org.example.service;
+
+import org.example.model.BalanceEdge;
+import org.example.model.Expense;
+import org.example.model.ExpenseGroup;
+import org.example.model.ExpenseParticipant;
+import org.example.model.GroupBalance;
+import org.example.model.MonthlyBalance;
+import org.example.model.User;
+import org.example.model.UserBalance;
+import org.example.repository.BalanceEdgeRepository;
+import org.example.repository.GroupBalanceRepository;
+import org.example.repository.MonthlyBalanceRepository;
+import org.example.repository.MonthlyEdgeRepository;
+import org.example.repository.UserBalanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class LedgerServiceTest {
+
+    @Mock
+    private UserBalanceRepository userBalanceRepository;
+
+    @Mock
+    private BalanceEdgeRepository balanceEdgeRepository;
+
+    @Mock
+    private GroupBalanceRepository groupBalanceRepository;
+
+    @Mock
+    private MonthlyBalanceRepository monthlyBalanceRepository;
+
+    @Mock
+    private MonthlyEdgeRepository monthlyEdgeRepository;
+
+    @Mock
+    private UserComponentIndex componentIndex;
+
+    @Mock
+    private SettlementPlanCache planCache;
+
+    @Mock
+    private UserVersions userVersions;
+
+    @InjectMocks
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testRecordExpense_appliesNetDeltaPerUser() {
+        User krish = new User("Krish", "krish@example.com");
+        krish.setId(1L);
+        User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
+
+        Expense expense = new Expense();
+        expense.setCreatedAt(LocalDateTime.of(2026, 3, 14, 12, 0));
+        expense.setAmount(BigDecimal.valueOf(300));
+        expense.setPaidBy(krish);
+
+        ExpenseParticipant p1 = new ExpenseParticipant();
+        p1.setUser(krish);
+        ExpenseParticipant p2 = new ExpenseParticipant();
+        p2.setUser(janhvi);
+        expense.setParticipants(List.of(p1, p2));
+
+        when(userBalanceRepository.addToBalance(eq(1L), any())).thenReturn(1);
+        when(userBalanceRepository.addToBalance(eq(2L), any())).thenReturn(0);
+
+        ledgerService.recordExpense(expense);
+
+        ArgumentCaptor<BigDecimal> payerDelta = ArgumentCaptor.forClass(BigDecimal.class);
+        verify(userBalanceRepository).addToBalance(eq(1L), payerDelta.capture());
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(payerDelta.getValue()));
+
+        ArgumentCaptor<UserBalance> created = ArgumentCaptor.forClass(UserBalance.class);
+        verify(userBalanceRepository).save(created.capture());
+        assertEquals(2L, created.getValue().getUserId());
+        assertEquals(0, BigDecimal.valueOf(-150).compareTo(created.getValue().getNetBalance()));
+
+        verify(balanceEdgeRepository).addToEdge(2L, 1L, new BigDecimal("150.00"));
+        verify(balanceEdgeRepository).addToEdge(1L, 2L, new BigDecimal("-150.00"));
+        verify(balanceEdgeRepository, times(2)).save(any(BalanceEdge.class));
+        verifyNoInteractions(groupBalanceRepository);
+        ArgumentCaptor<Runnable> onCommit = ArgumentCaptor.forClass(Runnable.class);
+        verify(planCache).invalidate(onCommit.capture());
+        verifyNoInteractions(componentIndex);
+        onCommit.getValue().run();
+        verify(componentIndex).connect(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(1L, 2L))));
+        verify(userVersions).bump(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(1L, 2L))));
+    }
+
+    @Test
+    void testRecordExpense_inGroup_appliesGroupDeltas() {
+        User krish = new User("Krish", "krish@example.com");
+        krish.setId(1L);
+        User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
+
+        ExpenseGroup group = new ExpenseGroup();
+        group.setId(7L);
+
+        Expense expense = new Expense();
+        expense.setCreatedAt(LocalDateTime.of(2026, 3, 14, 12, 0));
+        expense.setAmount(BigDecimal.valueOf(300));
+        expense.setPaidBy(krish);
+        expense.setGroup(group);
+
+        ExpenseParticipant p1 = new ExpenseParticipant();
+        p1.setUser(krish);
+        ExpenseParticipant p2 = new ExpenseParticipant();
+        p2.setUser(janhvi);
+        expense.setParticipants(List.of(p1, p2));
+
+        when(groupBalanceRepository.addToBalance(eq(7L), eq(1L), any())).thenReturn(1);
+        when(groupBalanceRepository.addToBalance(eq(7L), eq(2L), any())).thenReturn(0);
+
+        ledgerService.recordExpense(expense);
+
+        ArgumentCaptor<GroupBalance> created = ArgumentCaptor.forClass(GroupBalance.class);
+        verify(groupBalanceRepository).save(created.capture());
+        assertEquals(7L, created.getValue().getGroupId());
+        assertEquals(2L, created.getValue().getUserId());
+        assertEquals(0, BigDecimal.valueOf(-150).compareTo(created.getValue().getNetBalance()));
+    }
+
+    @Test
+    void testRecordExpenses_writesEachRowOncePerBatch() {
+        User krish = new User("Krish", "krish@example.com");
+        krish.setId(1L);
+        User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
+
+        Expense first = expense(krish, BigDecimal.valueOf(300), krish, janhvi);
+        Expense second = expense(janhvi, BigDecimal.valueOf(100), krish, janhvi);
+
+        when(userBalanceRepository.addToBalance(anyLong(), any())).thenReturn(1);
+        when(balanceEdgeRepository.addToEdge(anyLong(), anyLong(), any())).thenReturn(1);
+
+        ledgerService.recordExpenses(List.of(first, second));
+
+        verify(userBalanceRepository).addToBalance(1L, new BigDecimal("100.00"));
+        verify(userBalanceRepository).addToBalance(2L, new BigDecimal("-100.00"));
+        verify(balanceEdgeRepository).addToEdge(2L, 1L, new BigDecimal("100.00"));
+        verify(balanceEdgeRepository).addToEdge(1L, 2L, new BigDecimal("-100.00"));
+        verify(balanceEdgeRepository, times(2)).addToEdge(anyLong(), anyLong(), any());
+        verify(planCache, times(1)).invalidate(any());
+    }
+
+    @Test
+    void testRecordExpenses_rollsUpDeltasPerMonth() {
+        User krish = new User("Krish", "krish@example.com");
+        krish.setId(1L);
+        User janhvi = new User("Janhvi", "janhvi@example.com");
+        janhvi.setId(2L);
+
+        Expense march = expense(krish, BigDecimal.valueOf(300), krish, janhvi);
+        Expense lateMarch = expense(janhvi, BigDecimal.valueOf(100), krish, janhvi);
+        lateMarch.setCreatedAt(LocalDateTime.of(2026, 3, 31, 23, 59));
+        Expense april = expense(krish, BigDecimal.valueOf(50), krish, janhvi);
+        april.setCreatedAt(LocalDateTime.of(2026, 4, 1, 0, 0));
+
+        when(monthlyBalanceRepository.addToBalance(anyLong(), any(), any())).thenReturn(1);
+        when(monthlyEdgeRepository.addToEdge(eq(2L), eq(1L), eq(LocalDate.of(2026, 4, 1)), any())).thenReturn(0);
+        when(monthlyEdgeRepository.addToEdge(eq(2L), eq(1L), eq(LocalDate.of(2026, 3, 1)), any())).thenReturn(1);
+        when(monthlyEdgeRepository.addToEdge(eq(1L), eq(2L), any(), any())).thenReturn(1);
+
+        ledgerService.recordExpenses(List.of(march, lateMarch, april));
+
+        verify(monthlyBalanceRepository).addToBalance(1L, LocalDate.of(2026, 3, 1), new BigDecimal("100.00"));
+        verify(monthlyBalanceRepository).addToBalance(2L, LocalDate.of(2026, 3, 1), new BigDecimal("-100.00"));
+        verify(monthlyBalanceRepository).addToBalance(1L, LocalDate.of(2026, 4, 1), new BigDecimal("25.00"));
+        verify(monthlyBalanceRepository).addToBalance(2L, LocalDate.of(2026, 4, 1), new BigDecimal("-25.00"));
+        verify(monthlyBalanceRepository, never()).save(any(MonthlyBalance.class));
+        verify(monthlyEdgeRepository).addToEdge(2L, 1L, LocalDate.of(2026, 3, 1), new BigDecimal("100.00"));
+        verify(monthlyEdgeRepository).addToEdge(1L, 2L, LocalDate.of(2026, 4, 1), new BigDecimal("-25.00"));
+        verify(monthlyEdgeRepository, times(4)).addToEdge(anyLong(), anyLong(), any(), any());
+        verify(monthlyEdgeRepository, times(1)).save(any());
+    }
+
+    @Test
+    void testGetNetBalances_keyedByUserId() {
+        when(userBalanceRepository.findAll()).thenReturn(List.of(new UserBalance(1L, BigDecimal.TEN)));
+
+        Map<Long, BigDecimal> balances = ledgerService.getNetBalances();
+
+        assertEquals(1, balances.size());
+        assertEquals(BigDecimal.TEN, balances.get(1L));
+    }
+
+    private Expense expense(User payer, BigDecimal amount, User... users) {
+        Expense expense = new Expense();
+        expense.setCreatedAt(LocalDateTime.of(2026, 3, 14, 12, 0));
+        expense.setAmount(amount);
+        expense.setPaidBy(payer);
+        for (User user : users) {
+            ExpenseParticipant participant = new ExpenseParticipant();
+            participant.setUser(user);
+            expense.getParticipants().add(participant);
+        }
+        return expense;
+    }
+}
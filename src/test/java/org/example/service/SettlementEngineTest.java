@@ -0,0 +1,139 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SettlementEngineTest {
+
+    @Test
+    void testSettle_matchesBigDecimalGreedyOnRandomLedgers() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 20; round++) {
+            Map<Long, BigDecimal> balances = randomBalances(random, 300, 5_000);
+
+            SettlementEngine engine = new SettlementEngine();
+            balances.forEach(engine::add);
+            List<String> actual = new ArrayList<>();
+            for (SettlementEngine.Transfer transfer : engine.settle()) {
+                actual.add(engine.userId(transfer.from()) + "->" + engine.userId(transfer.to()) + ":" + SettlementEngine.toAmount(transfer.amount()));
+            }
+
+            assertEquals(referenceSettle(new HashMap<>(balances)), actual);
+        }
+    }
+
+    @Test
+    void testSettle_leavesBalancesUntouched() {
+        SettlementEngine engine = new SettlementEngine();
+        engine.add(1L, BigDecimal.valueOf(-30));
+        engine.add(2L, BigDecimal.valueOf(30));
+
+        List<SettlementEngine.Transfer> transfers = engine.settle();
+
+        assertEquals(List.of(new SettlementEngine.Transfer(0, 1, 3000)), transfers);
+        assertEquals(-3000, engine.balance(0));
+        assertEquals(3000, engine.balance(1));
+    }
+
+    @Test
+    void testIntern_assignsDenseIndicesInFirstSeenOrder() {
+        SettlementEngine engine = new SettlementEngine();
+        Random random = new Random(3);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            long id = random.nextLong();
+            if (!ids.contains(id)) ids.add(id);
+        }
+        ids.add(0L);
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, engine.intern(ids.get(i)));
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, engine.intern(ids.get(i)));
+            assertEquals(ids.get(i), engine.userId(i));
+            assertTrue(engine.contains(ids.get(i)));
+        }
+        assertEquals(ids.size(), engine.size());
+        assertFalse(engine.contains(1L));
+    }
+
+    @Test
+    void testEqualShare_roundsHalfUpLikeBigDecimal() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long cents = random.nextInt(2_000_000) - 1_000_000;
+            int parts = 1 + random.nextInt(12);
+            BigDecimal expected = SettlementEngine.toAmount(cents).divide(BigDecimal.valueOf(parts), 2, RoundingMode.HALF_UP);
+
+            assertEquals(expected, SettlementEngine.toAmount(SettlementEngine.equalShare(cents, parts)));
+        }
+    }
+
+    /**
+     * Net balances built the way expenses build them: equal shares owed by every participant, amount credited to the payer.
+     */
+    private static Map<Long, BigDecimal> randomBalances(Random random, int users, int expenses) {
+        Map<Long, BigDecimal> map = new HashMap<>();
+        for (int e = 0; e < expenses; e++) {
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+            int participants = 2 + random.nextInt(6);
+            BigDecimal share = amount.divide(BigDecimal.valueOf(participants), 2, RoundingMode.HALF_UP);
+            Long payer = null;
+            for (int p = 0; p < participants; p++) {
+                Long userId = 1 + random.nextInt(users) * 7919L;
+                map.merge(userId, share.negate(), BigDecimal::add);
+                payer = userId;
+            }
+            map.merge(payer, amount, BigDecimal::add);
+        }
+        return map;
+    }
+
+    /**
+     * The BigDecimal greedy the engine replaces, kept verbatim as the reference.
+     */
+    private static List<String> referenceSettle(Map<Long, BigDecimal> balanceMap) {
+        List<String> result = new ArrayList<>();
+
+        List<Map.Entry<Long, BigDecimal>> creditors = balanceMap.entrySet().stream()
+                .filter(entry -> entry.getValue().compareTo(BigDecimal.ZERO) > 0)
+                .sorted(Map.Entry.comparingByValue())
+                .toList();
+
+        List<Map.Entry<Long, BigDecimal>> debtors = balanceMap.entrySet().stream()
+                .filter(entry -> entry.getValue().compareTo(BigDecimal.ZERO) < 0)
+                .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
+                .toList();
+
+        int i = 0;
+        int j = 0;
+        while (i < debtors.size() && j < creditors.size()) {
+            Map.Entry<Long, BigDecimal> debtor = debtors.get(i);
+            Map.Entry<Long, BigDecimal> creditor = creditors.get(j);
+
+            BigDecimal amount = debtor.getValue().abs().min(creditor.getValue());
+            result.add(debtor.getKey() + "->" + creditor.getKey() + ":" + amount);
+
+            balanceMap.put(debtor.getKey(), debtor.getValue().add(amount));
+            balanceMap.put(creditor.getKey(), creditor.getValue().subtract(amount));
+
+            if (balanceMap.get(debtor.getKey()).compareTo(BigDecimal.ZERO) == 0) i++;
+            if (balanceMap.get(creditor.getKey()).compareTo(BigDecimal.ZERO) == 0) j++;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,228 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.dto.CounterpartySpend;
+import org.example.dto.ExpenseFactRow;
+import org.example.dto.MonthlySpend;
+import org.example.dto.SpendingAnalyticsResponse;
+import org.example.dto.UserRef;
+import org.example.exception.ExpenseSyncException;
+import org.example.model.Expense;
+import org.example.model.ExpenseParticipant;
+import org.example.model.User;
+import org.example.repository.ExpenseParticipantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class SpendingAnalyticsServiceTest {
+
+    @Mock
+    private ExpenseParticipantRepository participantRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserService userService;
+
+    @TempDir
+    private Path directory;
+
+    private final Map<Long, User> users = new HashMap<>();
+    private ExpenseFactStore factStore;
+    private SpendingAnalyticsService analyticsService;
+
+    @BeforeEach
+    void setup() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        user(1L, "janhvi");
+        user(2L, "rahul");
+        user(3L, "amit");
+        user(4L, "neha");
+
+        when(userService.getUserByEmail(any())).thenAnswer(invocation -> users.values().stream()
+                .filter(user -> user.getEmail().equals(invocation.getArgument(0)))
+                .findFirst().orElseThrow());
+        when(userService.getUsersById(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, User> found = new HashMap<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                found.put(id, users.get(id));
+            }
+            return found;
+        });
+        when(userService.getUserRef(any())).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            return UserRef.of(user.getName(), user.getEmail());
+        });
+
+        // Capacity 2 so the columns are remapped while loading.
+        factStore = new ExpenseFactStore(participantRepository, transactionManager, new SimpleMeterRegistry(),
+                directory.toString(), 2);
+        analyticsService = new SpendingAnalyticsService(userService, factStore, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        factStore.close();
+    }
+
+    @Test
+    void testGetSpending_aggregatesSharesPaymentsAndCounterparties() {
+        List<ExpenseFactRow> rows = new ArrayList<>();
+        // Janhvi pays 100.00 for herself, Rahul and Amit in January.
+        rows.addAll(rows(10L, "100.00", 1L, LocalDate.of(2026, 1, 5), 1L, 2L, 3L));
+        // Rahul pays 50.00 for Janhvi and Rahul in January.
+        rows.addAll(rows(11L, "50.00", 2L, LocalDate.of(2026, 1, 20), 1L, 2L));
+        // Neha pays 30.00 for Janhvi only in February.
+        rows.addAll(rows(12L, "30.00", 4L, LocalDate.of(2026, 2, 1), 1L));
+        // Rahul and Amit share an expense without Janhvi.
+        rows.addAll(rows(13L, "80.00", 2L, LocalDate.of(2026, 2, 2), 2L, 3L));
+        when(participantRepository.streamExpenseFacts()).thenReturn(rows.stream());
+
+        SpendingAnalyticsResponse response = analyticsService.getSpending("janhvi@example.com", null, 5);
+
+        assertEquals(UserRef.of("janhvi", "janhvi@example.com"), response.getUser());
+        assertEquals(3, response.getExpenseCount());
+        assertEquals(new BigDecimal("60.00"), response.getAverageExpenseSize());
+        assertEquals(List.of(
+                new MonthlySpend("2026-01", new BigDecimal("58.33"), new BigDecimal("100.00")),
+                new MonthlySpend("2026-02", new BigDecimal("30.00"), new BigDecimal("0.00"))), response.getMonths());
+        assertEquals(List.of(
+                new CounterpartySpend(UserRef.of("rahul", "rahul@example.com"), 2, new BigDecimal("150.00")),
+                new CounterpartySpend(UserRef.of("amit", "amit@example.com"), 1, new BigDecimal("100.00")),
+                new CounterpartySpend(UserRef.of("neha", "neha@example.com"), 1, new BigDecimal("30.00"))),
+                response.getTopCounterparties());
+    }
+
+    @Test
+    void testGetSpending_onlyCountsExpensesInTheWindowAndLimitsCounterparties() {
+        List<ExpenseFactRow> rows = new ArrayList<>();
+        rows.addAll(rows(10L, "100.00", 1L, LocalDate.of(2026, 1, 31), 1L, 2L));
+        rows.addAll(rows(11L, "40.00", 3L, LocalDate.of(2026, 2, 1), 1L, 3L));
+        rows.addAll(rows(12L, "10.00", 1L, LocalDate.of(2026, 3, 1), 1L, 4L));
+        when(participantRepository.streamExpenseFacts()).thenReturn(rows.stream());
+
+        SpendingAnalyticsResponse response = analyticsService.getSpending("janhvi@example.com",
+                new DateWindow(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28)), 1);
+
+        assertEquals(1, response.getExpenseCount());
+        assertEquals(List.of(new MonthlySpend("2026-02", new BigDecimal("20.00"), new BigDecimal("0.00"))), response.getMonths());
+        assertEquals(List.of(new CounterpartySpend(UserRef.of("amit", "amit@example.com"), 1, new BigDecimal("40.00"))),
+                response.getTopCounterparties());
+    }
+
+    @Test
+    void testGetSpending_includesAppendedExpensesOnceAndRebuildsWhenInvalidated() {
+        when(participantRepository.streamExpenseFacts())
+                .thenReturn(rows(10L, "100.00", 1L, LocalDate.of(2026, 1, 5), 1L, 2L).stream());
+        assertEquals(1, analyticsService.getSpending("janhvi@example.com", null, 5).getExpenseCount());
+
+        Expense appended = expense(11L, "25.00", 2L, LocalDateTime.of(2026, 1, 6, 9, 0), 1L, 2L);
+        factStore.append(List.of(appended));
+        factStore.append(List.of(appended));
+
+        SpendingAnalyticsResponse response = analyticsService.getSpending("janhvi@example.com", null, 5);
+        assertEquals(2, response.getExpenseCount());
+        assertEquals(new BigDecimal("62.50"), response.getMonths().get(0).getSpent());
+        verify(participantRepository, times(1)).streamExpenseFacts();
+
+        List<ExpenseFactRow> reloaded = new ArrayList<>(rows(10L, "100.00", 1L, LocalDate.of(2026, 1, 5), 1L, 2L));
+        reloaded.addAll(rows(11L, "25.00", 2L, LocalDate.of(2026, 1, 6), 1L, 2L));
+        reloaded.addAll(rows(12L, "9.00", 3L, LocalDate.of(2026, 1, 7), 1L, 3L));
+        when(participantRepository.streamExpenseFacts()).thenReturn(reloaded.stream());
+        factStore.invalidate();
+
+        assertEquals(3, analyticsService.getSpending("janhvi@example.com", null, 5).getExpenseCount());
+        verify(participantRepository, times(2)).streamExpenseFacts();
+    }
+
+    @Test
+    void testFacts_rebuildLeavesViewsTakenBeforeItIntact() {
+        when(participantRepository.streamExpenseFacts())
+                .thenReturn(rows(10L, "100.00", 1L, LocalDate.of(2026, 1, 5), 1L, 2L).stream())
+                .thenReturn(rows(9L, "7.00", 3L, LocalDate.of(2025, 12, 1), 3L, 4L, 1L).stream());
+        ExpenseFactStore.Facts before = factStore.facts();
+
+        factStore.invalidate();
+        ExpenseFactStore.Facts after = factStore.facts();
+
+        assertEquals(1, before.size());
+        assertEquals(10000L, before.amounts().get(0));
+        assertEquals(1L, before.payers().get(0));
+        assertEquals(2, before.participantEnds().get(0));
+        assertEquals(2L, before.participants().get(1));
+        assertEquals(700L, after.amounts().get(0));
+        assertEquals(3, after.participantEnds().get(0));
+    }
+
+    @Test
+    void testFacts_appendsDuringARebuildDoNotWaitForItAndAreKept() {
+        Expense appended = expense(11L, "25.00", 2L, LocalDateTime.of(2026, 1, 6, 9, 0), 1L, 2L);
+        when(participantRepository.streamExpenseFacts()).thenAnswer(invocation -> {
+            // The projector appends from its own thread while the load is still streaming.
+            CompletableFuture.runAsync(() -> factStore.append(List.of(appended))).get(5, TimeUnit.SECONDS);
+            return rows(10L, "100.00", 1L, LocalDate.of(2026, 1, 5), 1L, 2L).stream();
+        });
+
+        ExpenseFactStore.Facts facts = factStore.facts();
+
+        assertEquals(2, facts.size());
+        assertEquals(2500L, facts.amounts().get(1));
+        assertEquals(2L, facts.payers().get(1));
+        verify(participantRepository, times(1)).streamExpenseFacts();
+    }
+
+    @Test
+    void testGetSpending_rejectsOutOfRangeTop() {
+        assertThrows(ExpenseSyncException.class, () -> analyticsService.getSpending("janhvi@example.com", null, -1));
+        assertThrows(ExpenseSyncException.class,
+                () -> analyticsService.getSpending("janhvi@example.com", null, SpendingAnalyticsService.MAX_TOP + 1));
+    }
+
+    private void user(Long id, String name) {
+        User user = new User(name, name + "@example.com");
+        user.setId(id);
+        users.put(id, user);
+    }
+
+    private static List<ExpenseFactRow> rows(Long expenseId, String amount, Long payerId, LocalDate createdOn,
+                                             Long... participantIds) {
+        List<ExpenseFactRow> rows = new ArrayList<>();
+        for (Long participantId : participantIds) {
+            rows.add(new ExpenseFactRow(expenseId, new BigDecimal(amount), payerId, createdOn.atTime(12, 0), participantId));
+        }
+        return rows;
+    }
+
+    private Expense expense(Long id, String amount, Long payerId, LocalDateTime createdAt, Long... participantIds) {
+        Expense expense = Expense.builder().id(id).amount(new BigDecimal(amount)).paidBy(users.get(payerId))
+                .createdAt(createdAt).participants(new ArrayList<>()).build();
+        for (Long participantId : participantIds) {
+            expense.getParticipants().add(ExpenseParticipant.builder().expense(expense).user(users.get(participantId)).build());
+        }
+        return expense;
+    }
+}
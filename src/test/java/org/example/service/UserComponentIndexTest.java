@@ -0,0 +1,90 @@
+package org.example.service;
+
+import org.example.model.BalanceEdgeId;
+import org.example.repository.BalanceEdgeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserComponentIndexTest {
+
+    @Mock
+    private BalanceEdgeRepository balanceEdgeRepository;
+
+    @InjectMocks
+    private UserComponentIndex componentIndex;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testComponentOf_mergesStoredEdgesAndRecordedExpenses() {
+        when(balanceEdgeRepository.findAllPairs()).thenReturn(List.of(
+                new BalanceEdgeId(1L, 2L),
+                new BalanceEdgeId(3L, 4L)
+        ));
+
+        componentIndex.connect(List.of(4L, 5L));
+
+        assertEquals(Set.of(1L, 2L), new HashSet<>(componentIndex.componentOf(1L)));
+        assertEquals(Set.of(3L, 4L, 5L), new HashSet<>(componentIndex.componentOf(5L)));
+        assertEquals(List.of(9L), componentIndex.componentOf(9L));
+
+        componentIndex.connect(List.of(2L, 3L));
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), new HashSet<>(componentIndex.componentOf(4L)));
+        verify(balanceEdgeRepository, times(1)).findAllPairs();
+    }
+
+    @Test
+    void testPartition_groupsUsersByComponent() {
+        when(balanceEdgeRepository.findAllPairs()).thenReturn(List.of(
+                new BalanceEdgeId(1L, 3L),
+                new BalanceEdgeId(2L, 4L)
+        ));
+
+        List<List<Long>> components = new ArrayList<>(componentIndex.partition(List.of(1L, 2L, 3L, 4L, 5L)));
+
+        assertEquals(List.of(List.of(1L, 3L), List.of(2L, 4L), List.of(5L)), components);
+        assertEquals(componentIndex.rootOf(1L), componentIndex.rootOf(3L));
+        assertNotEquals(componentIndex.rootOf(1L), componentIndex.rootOf(2L));
+        assertEquals(5L, componentIndex.rootOf(5L));
+    }
+
+    @Test
+    void testReset_insideATransactionReloadsOnlyAfterCommit() {
+        when(balanceEdgeRepository.findAllPairs())
+                .thenReturn(List.of(new BalanceEdgeId(1L, 2L)))
+                .thenReturn(List.of(new BalanceEdgeId(1L, 3L)));
+        assertEquals(Set.of(1L, 2L), new HashSet<>(componentIndex.componentOf(1L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            componentIndex.reset();
+            assertEquals(Set.of(1L, 2L), new HashSet<>(componentIndex.componentOf(1L)));
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertEquals(Set.of(1L, 3L), new HashSet<>(componentIndex.componentOf(1L)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(balanceEdgeRepository, times(2)).findAllPairs();
+    }
+}
@@ -1,5 +1,8 @@
 package org.example.service;
 
+import jakarta.persistence.EntityManager;
+import org.example.dto.BatchItemStatus;
+import org.example.dto.BatchUserResponse;
 import org.example.dto.CreateUserRequest;
 import org.example.dto.UserResponse;
 import org.example.exception.ExpenseSyncException;
@@ -11,13 +14,22 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class UserServiceTest {
@@ -25,6 +37,12 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private UserDirectory userDirectory = new UserDirectory(100, Duration.ofMinutes(1));
+
     @InjectMocks
     private UserService userService;
 
@@ -106,4 +124,75 @@ class UserServiceTest {
         Set<User> users = userService.getAllUsersByEmail(Set.of("a@example.com", "b@example.com"));
         assertEquals(2, users.size());
     }
+
+    @Test
+    void testGetUserByEmail_servedFromDirectoryAfterFirstLookup() {
+        User user = new User("Krish", "krish@example.com");
+        when(userRepository.findByEmail("krish@example.com")).thenReturn(Optional.of(user));
+
+        userService.getUserByEmail("krish@example.com");
+        User result = userService.getUserByEmail("krish@example.com");
+
+        assertEquals(user, result);
+        verify(userRepository, times(1)).findByEmail("krish@example.com");
+    }
+
+    @Test
+    void testGetUsersByEmail_loadsOnlyDirectoryMisses() {
+        User u1 = new User("A", "a@example.com");
+        User u2 = new User("B", "b@example.com");
+        userDirectory.put(u1);
+
+        when(userRepository.findAllByEmailIn(Set.of("b@example.com"))).thenReturn(List.of(u2));
+
+        Map<String, User> users = userService.getUsersByEmail(Set.of("a@example.com", "b@example.com"));
+
+        assertEquals(2, users.size());
+        verify(userRepository, times(1)).findAllByEmailIn(Set.of("b@example.com"));
+
+        userService.getUsersByEmail(Set.of("a@example.com", "b@example.com"));
+        verify(userRepository, times(1)).findAllByEmailIn(any());
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void testCreateUsers_failsRepeatedAndRegisteredItemsIndividually() {
+        when(userRepository.findAllByEmailIn(any())).thenReturn(List.of(new User("Harsh", "harsh@example.com")));
+
+        BatchUserResponse response = userService.createUsers(List.of(
+                new CreateUserRequest("Krish", "krish@example.com"),
+                new CreateUserRequest("Krish again", "krish@example.com"),
+                new CreateUserRequest("Harsh", "harsh@example.com"),
+                new CreateUserRequest("Janhvi", "janhvi@example.com"),
+                new CreateUserRequest("", "nobody@example.com")));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(3, response.getFailed());
+        assertEquals(List.of(BatchItemStatus.CREATED, BatchItemStatus.FAILED, BatchItemStatus.FAILED,
+                        BatchItemStatus.CREATED, BatchItemStatus.FAILED),
+                response.getResults().stream().map(result -> result.getStatus()).toList());
+        assertEquals("Email repeated in batch", response.getResults().get(1).getError());
+        assertEquals("Email already registered", response.getResults().get(2).getError());
+        assertEquals("janhvi@example.com", response.getResults().get(3).getUser().getEmail());
+
+        verify(userRepository, times(1)).findAllByEmailIn(any());
+        verify(userRepository, times(1)).findAllByNameIn(anyCollection());
+        verify(userRepository, never()).existsByEmail(any());
+        verify(entityManager).flush();
+        assertNotNull(userDirectory.get("janhvi@example.com"));
+    }
+
+    @Test
+    void testCreateUsers_cachesUsersOnlyOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.createUsers(List.of(new CreateUserRequest("Krish", "krish@example.com")));
+            assertNull(userDirectory.get("krish@example.com"));
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertNotNull(userDirectory.get("krish@example.com"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
 }